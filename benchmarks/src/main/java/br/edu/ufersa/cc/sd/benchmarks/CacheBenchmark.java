@@ -0,0 +1,88 @@
+package br.edu.ufersa.cc.sd.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.edu.ufersa.cc.sd.enums.EvictionMode;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.services.CacheService;
+
+// Cache do proxy disputado por várias threads. Os códigos consultados seguem
+// uma distribuição enviesada (poucos códigos concentram a maior parte das
+// consultas) sobre o dobro da capacidade, então parte das buscas erra o cache
+// e passa pela remoção; o servidor é simulado por uma ordem já pronta
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.QUIET)
+@Threads(4)
+public class CacheBenchmark {
+
+    @Param({ "30", "1024", "16384" })
+    private int capacity;
+
+    @Param({ "LRU", "TINY_LFU" })
+    private EvictionMode mode;
+
+    private CacheService cache;
+    private Order[] orders;
+
+    // Códigos nunca vistos, para medir a entrada de ordens novas
+    private final AtomicLong fresh = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new CacheService(mode, capacity);
+        orders = new Order[capacity * 2];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = Fixtures.order(i + 1);
+        }
+        fresh.set(orders.length);
+
+        // Cache cheio antes da primeira medição
+        for (final var order : orders) {
+            cache.update(order);
+        }
+    }
+
+    @Benchmark
+    public Order find() {
+        final var order = pick();
+        return cache.find(order.getCode(), () -> order);
+    }
+
+    @Benchmark
+    public void update() {
+        cache.update(pick());
+    }
+
+    // Edição de uma ordem fora do cache: entra como a mais recente e expulsa outra
+    @Benchmark
+    public void addToCache() {
+        cache.update(Fixtures.order(fresh.incrementAndGet()));
+    }
+
+    // O quadrado de um sorteio uniforme concentra as consultas nos primeiros códigos
+    private Order pick() {
+        final var random = ThreadLocalRandom.current().nextDouble();
+        return orders[(int) (random * random * orders.length)];
+    }
+
+}
@@ -0,0 +1,73 @@
+package br.edu.ufersa.cc.sd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.WireFormat;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.Frames;
+
+// Ida e volta das mensagens trocadas entre proxy e servidor, nos dois
+// formatos aceitos: uma busca e a resposta com uma ou várias ordens
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.QUIET)
+public class CodecBenchmark {
+
+    @Param({ "BINARY", "JAVA" })
+    private WireFormat format;
+
+    // Ordens na resposta: uma busca ou uma página da listagem
+    @Param({ "1", "50" })
+    private int orders;
+
+    private Request<Order> request;
+    private Response<?> response;
+    private byte[] encodedResponse;
+
+    @Setup
+    public void setUp() {
+        request = new Request<>(Operation.FIND, new Order().setCode(42L));
+        request.setCorrelationId(1L);
+
+        response = orders == 1
+                ? new Response<>(Fixtures.order(42))
+                : new Response<ArrayList<Order>>(Fixtures.orders(orders));
+        response.setCorrelationId(1L);
+        encodedResponse = Frames.encode(response, format);
+    }
+
+    @Benchmark
+    public Object requestRoundTrip() {
+        return Frames.decode(Frames.encode(request, format), format);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() {
+        return Frames.encode(response, format);
+    }
+
+    @Benchmark
+    public Object decodeResponse() {
+        return Frames.decode(encodedResponse, format);
+    }
+
+}
@@ -0,0 +1,37 @@
+package br.edu.ufersa.cc.sd.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import br.edu.ufersa.cc.sd.models.Order;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Dados e opções comuns às medições
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Fixtures {
+
+    // Cada medição roda numa JVM nova, sem os logs do projeto
+    public static final String QUIET = "-Dlog4j.configurationFile=log4j2-benchmark.xml";
+
+    // Ordem com textos de tamanho parecido com os cadastrados pela interface
+    public static Order order(final long code) {
+        final var createdAt = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(code);
+
+        return new Order()
+                .setCode(code)
+                .setName("Ordem " + code)
+                .setDescription("Manutenção preventiva do equipamento " + code + " no bloco " + code % 17)
+                .setCreatedAt(createdAt)
+                .setDoneAt(code % 3 == 0 ? createdAt.plusHours(2) : null);
+    }
+
+    public static ArrayList<Order> orders(final int size) {
+        final var orders = new ArrayList<Order>(size);
+        for (long code = 1; code <= size; code++) {
+            orders.add(order(code));
+        }
+        return orders;
+    }
+
+}
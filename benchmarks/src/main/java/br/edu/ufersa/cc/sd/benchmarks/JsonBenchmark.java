@@ -0,0 +1,34 @@
+package br.edu.ufersa.cc.sd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.utils.JsonUtils;
+
+// Conversão usada por Order.toString, chamada a cada ordem registrada no log
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.QUIET)
+public class JsonBenchmark {
+
+    private final Order order = Fixtures.order(42);
+
+    @Benchmark
+    public String toJson() {
+        return JsonUtils.toJson(order);
+    }
+
+}
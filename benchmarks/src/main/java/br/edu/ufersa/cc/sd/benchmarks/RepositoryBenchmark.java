@@ -0,0 +1,128 @@
+package br.edu.ufersa.cc.sd.benchmarks;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.Migrations;
+import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Consultas e cadastros no H2 em memória usado pelo servidor de dados, com a
+// tabela em tamanhos diferentes e com ou sem os índices da migração 2, para
+// comparar o custo das listagens ordenadas conforme a tabela cresce. Com o
+// índice, uma página custa o mesmo no início, no meio ou no fim da listagem;
+// para medir tabelas maiores, passe por exemplo -p rows=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.QUIET)
+public class RepositoryBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:db1";
+    private static final int PAGE = 50;
+
+    @Param({ "1000", "100000" })
+    private int rows;
+
+    @Param({ "true", "false" })
+    private boolean indexed;
+
+    private final OrderRepository repository = new OrderRepository();
+
+    // Ordem no meio da listagem, de onde parte a página seguinte
+    private Order middle;
+
+    // Ordem perto do fim da listagem, de onde parte a última página
+    private Order deep;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Migrations.migrate();
+
+        if (!indexed) {
+            try (final var connection = DriverManager.getConnection(URL, "sa", "");
+                    final var statement = connection.createStatement()) {
+                statement.executeUpdate("drop index if exists orders_created_at_code");
+                statement.executeUpdate("drop index if exists orders_done_at");
+            }
+        }
+
+        final var orders = Fixtures.orders(rows);
+        orders.forEach(order -> order.setCode(null));
+        repository.createAll(orders);
+        OrderRepository.reconcile();
+
+        final List<Order> listed = repository.listAll();
+        middle = listed.get(listed.size() / 2);
+        deep = listed.get(listed.size() - PAGE - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        OrderRepository.closeConnection();
+    }
+
+    @Benchmark
+    public Order findByCode() {
+        return repository.findByCode(ThreadLocalRandom.current().nextLong(1, rows + 1L));
+    }
+
+    @Benchmark
+    public List<Order> firstPage() {
+        return repository.listAfter(null, PAGE);
+    }
+
+    @Benchmark
+    public List<Order> nextPage() {
+        return repository.listAfter(middle, PAGE);
+    }
+
+    @Benchmark
+    public List<Order> deepPage() {
+        return repository.listAfter(deep, PAGE);
+    }
+
+    // Listagem completa em blocos, como na operação LIST_STREAM
+    @Benchmark
+    public Long streamAll(final Blackhole blackhole) {
+        return repository.streamAll(Constants.STREAM_CHUNK, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Order> listAll() {
+        return repository.listAll();
+    }
+
+    // A tabela cresce durante a medição, mas cada medição roda numa JVM
+    // própria: as linhas cadastradas aqui não chegam às demais
+    @Benchmark
+    public Order create() {
+        final var order = new Order()
+                .setName("Ordem nova")
+                .setDescription("Cadastrada durante a medição");
+        repository.create(order);
+        return order;
+    }
+
+}
@@ -3,6 +3,9 @@ package br.edu.ufersa.cc.sd;
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
@@ -33,20 +36,65 @@ public class Main {
     private static final ProxyService PROXY = new ProxyService();
     private static final LocalizationService LOCALIZATION = new LocalizationService();
 
-    public static void main(final String[] args) throws SQLException {
-        LOG.info("Inicializando banco de dados...");
-        OrderService.initialize();
-
-        LOG.info("Inicializando servidor...");
-        SERVER.run();
+    private static final String ROLE_SERVER = "server";
+    private static final String ROLE_PROXY = "proxy";
+    private static final String ROLE_LOCALIZATION = "localization";
 
-        LOG.info("Inicializando servidor de proxy...");
-        PROXY.run();
-
-        LOG.info("Inicializando servidor de localização...");
-        LOCALIZATION.run();
+    // Sem argumentos, os três servidores sobem juntos com a janela de controle.
+    // Com argumentos (server, proxy e/ou localization), só os papéis indicados
+    // sobem, sem janela, para que cada um rode num processo ou máquina própria
+    public static void main(final String[] args) throws SQLException {
+        final var roles = Arrays.stream(args)
+                .flatMap(arg -> Arrays.stream(arg.split(",")))
+                .map(role -> role.trim().toLowerCase())
+                .filter(role -> !role.isEmpty())
+                .collect(Collectors.toSet());
+
+        for (final var role : roles) {
+            if (!List.of(ROLE_SERVER, ROLE_PROXY, ROLE_LOCALIZATION).contains(role)) {
+                throw new IllegalArgumentException("Papel desconhecido: " + role
+                        + " (use " + ROLE_SERVER + ", " + ROLE_PROXY + " ou " + ROLE_LOCALIZATION + ")");
+            }
+        }
+
+        final var all = roles.isEmpty();
+
+        if (all || roles.contains(ROLE_SERVER)) {
+            LOG.info("Inicializando banco de dados...");
+            OrderService.initialize();
+
+            LOG.info("Inicializando servidor...");
+            SERVER.run();
+        }
+
+        if (all || roles.contains(ROLE_PROXY)) {
+            LOG.info("Inicializando servidor de proxy...");
+            PROXY.run();
+        }
+
+        if (all || roles.contains(ROLE_LOCALIZATION)) {
+            LOG.info("Inicializando servidor de localização...");
+            LOCALIZATION.run();
+        }
+
+        if (all) {
+            openHelper();
+        } else {
+            // Encerrado pelo sistema, o proxy ainda sai do registro da localização
+            Runtime.getRuntime().addShutdownHook(new Thread(Main::stopAll, "shutdown"));
+        }
+    }
 
-        openHelper();
+    private static void stopAll() {
+        if (LOCALIZATION.isAlive()) {
+            LOCALIZATION.stop();
+        }
+        if (PROXY.isAlive()) {
+            PROXY.stop();
+        }
+        if (SERVER.isAlive()) {
+            SERVER.stop();
+        }
     }
 
     private static void openHelper() {
@@ -131,16 +179,7 @@ public class Main {
                 + Constants.LOCALIZATION_PORT + "</html>");
         final var endButton = new JButton("Encerrar tudo");
         endButton.addActionListener(e -> {
-            if (LOCALIZATION.isAlive()) {
-                LOCALIZATION.stop();
-            }
-            if (PROXY.isAlive()) {
-                PROXY.stop();
-            }
-            if (SERVER.isAlive()) {
-                SERVER.stop();
-            }
-
+            stopAll();
             janela.dispose();
         });
         painelBotoes.add(endLabel);
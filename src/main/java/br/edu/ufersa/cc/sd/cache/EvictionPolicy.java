@@ -0,0 +1,35 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import br.edu.ufersa.cc.sd.enums.EvictionMode;
+
+// Decide qual chave deixa o cache quando ele passa da capacidade. As
+// implementações não são seguras entre threads: quem as usa deve sincronizar
+public interface EvictionPolicy<K> {
+
+    static <K> EvictionPolicy<K> create(final EvictionMode mode, final Integer capacity) {
+        switch (mode) {
+            case FIFO:
+                return new FifoPolicy<>();
+
+            case LRU:
+                return new LruPolicy<>();
+
+            case LFU:
+                return new LfuPolicy<>();
+
+            default:
+                return new TinyLfuPolicy<>(capacity);
+        }
+    }
+
+    void onInsert(K key);
+
+    // Chaves desconhecidas (já removidas) devem ser ignoradas
+    void onAccess(K key);
+
+    void onRemove(K key);
+
+    // Remove a vítima da própria política e a retorna; nulo se não houver chaves
+    K evict();
+
+}
@@ -0,0 +1,39 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Sai a chave que chegou primeiro, independente do uso
+public class FifoPolicy<K> implements EvictionPolicy<K> {
+
+    private final Set<K> arrivals = new LinkedHashSet<>();
+
+    @Override
+    public void onInsert(final K key) {
+        arrivals.remove(key);
+        arrivals.add(key);
+    }
+
+    @Override
+    public void onAccess(final K key) {
+        // A ordem de chegada não muda com o uso
+    }
+
+    @Override
+    public void onRemove(final K key) {
+        arrivals.remove(key);
+    }
+
+    @Override
+    public K evict() {
+        final var iterator = arrivals.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+
+        final var victim = iterator.next();
+        iterator.remove();
+        return victim;
+    }
+
+}
@@ -0,0 +1,73 @@
+package br.edu.ufersa.cc.sd.cache;
+
+// Estimativa aproximada da frequência recente de cada chave (count-min sketch
+// com contadores saturando em 15). Após um número de registros proporcional ao
+// tamanho, todos os contadores são divididos por dois, para esquecer o passado
+public class FrequencySketch<K> {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x97CB3127, 0xB3D2C8A5, 0x85EBCA6B, 0xC2B2AE35 };
+
+    private final int[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    public FrequencySketch(final Integer capacity) {
+        final var width = Integer.highestOneBit(Math.max(16, capacity * 4 - 1)) << 1;
+        this.table = new int[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = Math.max(10 * capacity, 64);
+    }
+
+    public int frequency(final K key) {
+        final var hash = spread(key.hashCode());
+
+        var frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    public void increment(final K key) {
+        final var hash = spread(key.hashCode());
+
+        var added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            final var index = indexOf(hash, row);
+            if (table[row][index] < MAX_COUNT) {
+                table[row][index]++;
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (final var row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(final int hash, final int row) {
+        var h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xED5AD4BB;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+
+}
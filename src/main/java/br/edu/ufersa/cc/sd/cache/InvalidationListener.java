@@ -0,0 +1,106 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.UpstreamChannel;
+import br.edu.ufersa.cc.sd.sharding.Shards;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Assina as alterações do servidor principal de cada parte e repassa os
+// códigos alterados ao cache. Enquanto a assinatura está fora, alterações
+// podem se perder, então a cada nova assinatura o cache é descartado por
+// inteiro, depois que o servidor confirma o início
+public class InvalidationListener implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InvalidationListener.class.getSimpleName());
+
+    private final Consumer<List<Long>> onChange;
+    private final Runnable onReset;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<UpstreamChannel> channels = new ArrayList<>();
+    private volatile boolean running;
+
+    public InvalidationListener(final Consumer<List<Long>> onChange, final Runnable onReset) {
+        this.onChange = onChange;
+        this.onReset = onReset;
+    }
+
+    public void start() {
+        running = true;
+
+        for (int shard = 0; shard < Shards.RING.getSize(); shard++) {
+            final var address = Shards.address(shard);
+            final var channel = new UpstreamChannel(address.getHostString(), address.getPort(), 1);
+            channels.add(channel);
+
+            final var thread = new Thread(() -> listen(channel), "invalidation-" + shard);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+        channels.forEach(UpstreamChannel::close);
+        channels.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listen(final UpstreamChannel channel) {
+        while (running) {
+            final var subscribed = new boolean[] { false };
+
+            try {
+                final Response<Serializable> end = channel.stream(new Request<>(Operation.SUBSCRIBE, Order.class),
+                        chunk -> {
+                            if (!running) {
+                                throw new ConnectionException("Assinatura encerrada pelo proxy");
+                            }
+                            if (!subscribed[0]) {
+                                subscribed[0] = true;
+                                LOG.info("Alterações do servidor assinadas");
+                                onReset.run();
+                            }
+
+                            final var codes = (List<Long>) chunk.getItem();
+                            if (codes != null && !codes.isEmpty()) {
+                                onChange.accept(codes);
+                            }
+                        });
+                LOG.warn("Assinatura de alterações encerrada: {}", end.getMessage());
+            } catch (final ConnectionException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warn("Assinatura de alterações interrompida: {}", e.getMessage());
+            }
+
+            // Alterações feitas daqui até a próxima assinatura não chegam
+            onReset.run();
+
+            try {
+                Thread.sleep(Constants.HEARTBEAT_INTERVAL);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Sai a chave menos usada (a mais antiga, em caso de empate). As chaves ficam
+// agrupadas numa lista ordenada de frequências, então cada operação é constante
+public class LfuPolicy<K> implements EvictionPolicy<K> {
+
+    private static class Bucket<K> {
+        private final long frequency;
+        private final Set<K> keys = new LinkedHashSet<>();
+        private Bucket<K> previous;
+        private Bucket<K> next;
+
+        public Bucket(final long frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    private final Map<K, Bucket<K>> buckets = new HashMap<>();
+    private Bucket<K> lowest;
+
+    @Override
+    public void onInsert(final K key) {
+        onRemove(key);
+
+        if (lowest == null || lowest.frequency != 1) {
+            lowest = link(new Bucket<>(1), null, lowest);
+        }
+
+        lowest.keys.add(key);
+        buckets.put(key, lowest);
+    }
+
+    @Override
+    public void onAccess(final K key) {
+        final var current = buckets.get(key);
+        if (current == null) {
+            return;
+        }
+
+        var target = current.next;
+        if (target == null || target.frequency != current.frequency + 1) {
+            target = link(new Bucket<>(current.frequency + 1), current, current.next);
+        }
+
+        target.keys.add(key);
+        buckets.put(key, target);
+        detach(current, key);
+    }
+
+    @Override
+    public void onRemove(final K key) {
+        final var current = buckets.remove(key);
+        if (current != null) {
+            detach(current, key);
+        }
+    }
+
+    @Override
+    public K evict() {
+        if (lowest == null) {
+            return null;
+        }
+
+        final var victim = lowest.keys.iterator().next();
+        onRemove(victim);
+        return victim;
+    }
+
+    private Bucket<K> link(final Bucket<K> bucket, final Bucket<K> previous, final Bucket<K> next) {
+        bucket.previous = previous;
+        bucket.next = next;
+
+        if (previous != null) {
+            previous.next = bucket;
+        }
+        if (next != null) {
+            next.previous = bucket;
+        }
+        return bucket;
+    }
+
+    // Grupos vazios saem da lista para que o primeiro seja sempre o de menor frequência
+    private void detach(final Bucket<K> bucket, final K key) {
+        bucket.keys.remove(key);
+        if (!bucket.keys.isEmpty()) {
+            return;
+        }
+
+        if (bucket.previous != null) {
+            bucket.previous.next = bucket.next;
+        } else {
+            lowest = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.previous = bucket.previous;
+        }
+    }
+
+}
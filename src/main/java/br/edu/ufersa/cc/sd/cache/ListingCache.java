@@ -0,0 +1,281 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.models.Order;
+
+// Guarda a última listagem completa e a contagem de ordens, corrigindo-as a
+// cada escrita que passa pelo proxy. Escritas feitas por outros caminhos são
+// corrigidas quando o servidor as anuncia, ou aparecem quando o resultado expira
+public class ListingCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ListingCache.class.getSimpleName());
+
+    private final long ttl;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // As listas guardadas nunca são alteradas: cada correção cria uma nova
+    private ArrayList<Order> orders;
+    private long ordersExpiration;
+    private Long count;
+    private long countExpiration;
+
+    // Incrementado no início e no fim de cada escrita; um resultado buscado
+    // durante uma escrita não é guardado, pois pode ou não refletir a alteração
+    private long generation;
+    private int writing;
+
+    public ListingCache(final Integer ttlMillis) {
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public ArrayList<Order> list(final Supplier<ArrayList<Order>> fetch) {
+        final long seen;
+
+        lock.lock();
+        try {
+            if (orders != null && ordersExpiration - System.nanoTime() > 0) {
+                LOG.info("Listagem respondida pelo cache");
+                return orders;
+            }
+            seen = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        final var result = fetch.get();
+
+        lock.lock();
+        try {
+            if (isStable(seen)) {
+                orders = result;
+                ordersExpiration = System.nanoTime() + ttl;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return result;
+    }
+
+    public Long count(final Supplier<Long> fetch) {
+        final long seen;
+
+        lock.lock();
+        try {
+            if (count != null && countExpiration - System.nanoTime() > 0) {
+                LOG.info("Contagem respondida pelo cache");
+                return count;
+            }
+            seen = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        final var result = fetch.get();
+
+        lock.lock();
+        try {
+            if (isStable(seen)) {
+                count = result;
+                countExpiration = System.nanoTime() + ttl;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return result;
+    }
+
+    public void beginWrite() {
+        lock.lock();
+        try {
+            generation++;
+            writing++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void created(final Order order) {
+        createdAll(Collections.singletonList(order));
+    }
+
+    // Lotes são corrigidos numa única cópia da listagem
+    public void createdAll(final List<Order> created) {
+        finishWrite(() -> {
+            if (created.stream().anyMatch(order -> order == null || order.getCode() == null)) {
+                invalidate();
+                return;
+            }
+
+            if (orders != null) {
+                final var known = codesOf(orders);
+                final var patched = new ArrayList<>(orders);
+                created.stream()
+                        .filter(order -> !known.contains(order.getCode()))
+                        .forEach(patched::add);
+                patched.sort(Order.LISTING_ORDER);
+                orders = patched;
+            }
+            if (count != null) {
+                count += created.size();
+            }
+        });
+    }
+
+    public void updated(final Order order) {
+        updatedAll(Collections.singletonList(order));
+    }
+
+    public void updatedAll(final List<Order> updated) {
+        finishWrite(() -> {
+            if (orders == null) {
+                return;
+            }
+
+            final var byCode = new HashMap<Long, Order>(updated.size() * 2);
+            updated.forEach(order -> byCode.put(order.getCode(), order));
+
+            // A edição não altera a data de cadastro, que define a posição
+            final var patched = new ArrayList<Order>(orders.size());
+            for (final var previous : orders) {
+                final var order = byCode.get(previous.getCode());
+                patched.add(order == null ? previous
+                        : new Order()
+                                .setCode(order.getCode())
+                                .setName(order.getName())
+                                .setDescription(order.getDescription())
+                                .setCreatedAt(previous.getCreatedAt())
+                                .setDoneAt(order.getDoneAt()));
+            }
+            orders = patched;
+        });
+    }
+
+    public void deleted(final Order order) {
+        deletedAll(Collections.singletonList(order));
+    }
+
+    public void deletedAll(final List<Order> deleted) {
+        finishWrite(() -> {
+            if (orders != null) {
+                final var codes = codesOf(deleted);
+                final var patched = new ArrayList<>(orders);
+                patched.removeIf(order -> codes.contains(order.getCode()));
+                orders = patched;
+            }
+            if (count != null) {
+                count -= deleted.size();
+            }
+        });
+    }
+
+    // Alterações anunciadas pelo servidor: as ordens alteradas são buscadas de
+    // novo e só elas são corrigidas na listagem. As escritas deste proxy já
+    // estão nela e não mudam nada. Sem a listagem, a contagem guardada não tem
+    // como ser corrigida e é descartada
+    public void changed(final List<Long> codes, final Supplier<List<Order>> fetch) {
+        lock.lock();
+        try {
+            generation++;
+            if (orders == null && count == null) {
+                return;
+            }
+            writing++;
+        } finally {
+            lock.unlock();
+        }
+
+        final List<Order> current;
+        try {
+            current = fetch.get();
+        } catch (final RuntimeException e) {
+            failed();
+            throw e;
+        }
+
+        finishWrite(() -> {
+            if (orders == null) {
+                count = null;
+                return;
+            }
+
+            final var changed = new HashSet<>(codes);
+            final var patched = new ArrayList<Order>(orders.size() + current.size());
+            orders.stream()
+                    .filter(order -> !changed.contains(order.getCode()))
+                    .forEach(patched::add);
+            current.stream()
+                    .filter(order -> changed.contains(order.getCode()))
+                    .forEach(patched::add);
+            patched.sort(Order.LISTING_ORDER);
+
+            if (count != null) {
+                count += patched.size() - orders.size();
+            }
+            orders = patched;
+        });
+    }
+
+    // Recomeço do anúncio de alterações; um resultado buscado antes dele
+    // também deixa de ser guardado
+    public void invalidated() {
+        lock.lock();
+        try {
+            invalidate();
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Escritas recusadas pelo servidor não alteram nada
+    public void rejected() {
+        finishWrite(() -> {
+        });
+    }
+
+    // Escritas de resultado desconhecido (sem resposta do servidor) descartam tudo
+    public void failed() {
+        finishWrite(this::invalidate);
+    }
+
+    private void finishWrite(final Runnable patch) {
+        lock.lock();
+        try {
+            patch.run();
+            generation++;
+            writing--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidate() {
+        orders = null;
+        count = null;
+    }
+
+    private boolean isStable(final long seen) {
+        return generation == seen && writing == 0;
+    }
+
+    private static Set<Long> codesOf(final List<Order> orders) {
+        final var codes = new HashSet<Long>(orders.size() * 2);
+        orders.forEach(order -> codes.add(order.getCode()));
+        return codes;
+    }
+
+}
@@ -0,0 +1,41 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Sai a chave usada há mais tempo; cada uso leva a chave para o fim da fila
+public class LruPolicy<K> implements EvictionPolicy<K> {
+
+    private final Set<K> recency = new LinkedHashSet<>();
+
+    @Override
+    public void onInsert(final K key) {
+        recency.remove(key);
+        recency.add(key);
+    }
+
+    @Override
+    public void onAccess(final K key) {
+        if (recency.remove(key)) {
+            recency.add(key);
+        }
+    }
+
+    @Override
+    public void onRemove(final K key) {
+        recency.remove(key);
+    }
+
+    @Override
+    public K evict() {
+        final var iterator = recency.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+
+        final var victim = iterator.next();
+        iterator.remove();
+        return victim;
+    }
+
+}
@@ -0,0 +1,84 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Lembra por pouco tempo os códigos que não existem na base de dados. Tem
+// capacidade própria, separada do cache de ordens, e descarta os mais antigos
+public class NegativeCache<K> {
+
+    private final long ttl;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<K, Long> expirations;
+
+    public NegativeCache(final Integer capacity, final Integer ttlMillis) {
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.expirations = new LinkedHashMap<>(capacity * 2) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    public boolean contains(final K key) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        lock.lock();
+        try {
+            final var expiration = expirations.get(key);
+            if (expiration == null) {
+                return false;
+            }
+            if (expiration - System.nanoTime() <= 0) {
+                expirations.remove(key);
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void add(final K key) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            // Reinserida para ir ao fim da ordem de descarte
+            expirations.remove(key);
+            expirations.put(key, System.nanoTime() + ttl);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(final K key) {
+        lock.lock();
+        try {
+            expirations.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            expirations.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
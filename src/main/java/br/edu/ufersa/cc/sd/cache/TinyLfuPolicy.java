@@ -0,0 +1,116 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// W-TinyLFU: chaves novas passam por uma pequena janela LRU; ao sair dela,
+// disputam a vaga com a próxima vítima da área principal e fica a que tiver
+// maior frequência estimada. A área principal é um LRU segmentado, em que
+// chaves usadas mais de uma vez ficam protegidas
+public class TinyLfuPolicy<K> implements EvictionPolicy<K> {
+
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final Set<K> window = new LinkedHashSet<>();
+    private final Set<K> probation = new LinkedHashSet<>();
+    private final Set<K> protectedKeys = new LinkedHashSet<>();
+    private final FrequencySketch<K> sketch;
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+
+    public TinyLfuPolicy(final Integer capacity) {
+        this.windowCapacity = Math.max(1, (int) (capacity * WINDOW_RATIO));
+        this.mainCapacity = Math.max(1, capacity - windowCapacity);
+        this.protectedCapacity = (int) (mainCapacity * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch<>(capacity);
+    }
+
+    @Override
+    public void onInsert(final K key) {
+        sketch.increment(key);
+        onRemove(key);
+        window.add(key);
+    }
+
+    @Override
+    public void onAccess(final K key) {
+        if (window.remove(key)) {
+            sketch.increment(key);
+            window.add(key);
+        } else if (probation.remove(key)) {
+            sketch.increment(key);
+            promote(key);
+        } else if (protectedKeys.remove(key)) {
+            sketch.increment(key);
+            protectedKeys.add(key);
+        }
+    }
+
+    @Override
+    public void onRemove(final K key) {
+        if (!window.remove(key) && !probation.remove(key)) {
+            protectedKeys.remove(key);
+        }
+    }
+
+    @Override
+    public K evict() {
+        // A chave mais antiga da janela vira candidata na área principal
+        K candidate = null;
+        if (window.size() > windowCapacity) {
+            candidate = removeFirst(window);
+            probation.add(candidate);
+        }
+
+        if (probation.size() + protectedKeys.size() <= mainCapacity) {
+            // Sobrou vaga na área principal; a vítima sai da janela
+            return window.isEmpty() ? evictFromMain(null) : removeFirst(window);
+        }
+
+        return evictFromMain(candidate);
+    }
+
+    private K evictFromMain(final K candidate) {
+        final var victim = firstOtherThan(candidate);
+        if (victim == null) {
+            onRemove(candidate);
+            return candidate;
+        }
+
+        // Sem candidata (ou se ela for menos frequente), sai a vítima da área principal
+        if (candidate == null || sketch.frequency(candidate) > sketch.frequency(victim)) {
+            onRemove(victim);
+            return victim;
+        }
+
+        onRemove(candidate);
+        return candidate;
+    }
+
+    private K firstOtherThan(final K candidate) {
+        for (final var key : probation) {
+            if (!key.equals(candidate)) {
+                return key;
+            }
+        }
+        return protectedKeys.isEmpty() ? null : protectedKeys.iterator().next();
+    }
+
+    private void promote(final K key) {
+        protectedKeys.add(key);
+        if (protectedKeys.size() > protectedCapacity) {
+            probation.add(removeFirst(protectedKeys));
+        }
+    }
+
+    private K removeFirst(final Set<K> keys) {
+        final var iterator = keys.iterator();
+        final var first = iterator.next();
+        iterator.remove();
+        return first;
+    }
+
+}
@@ -0,0 +1,289 @@
+package br.edu.ufersa.cc.sd.client;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
+import br.edu.ufersa.cc.sd.dto.Page;
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Cliente das operações de ordens: pergunta à localização quais proxies usar,
+// guarda a lista enquanto ela vale e reaproveita as conexões com eles. Cada
+// operação tem uma versão síncrona e uma que devolve CompletableFuture
+//
+// Uma requisição que não chegou a sair é sempre repetida em outro proxy; uma
+// que saiu e ficou sem resposta só é repetida se repeti-la não muda o
+// resultado (leituras e edições), pois o cadastro ou a exclusão pode ter sido
+// feito antes da falha
+public class OrdersClient implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrdersClient.class.getSimpleName());
+
+    private static final Set<Operation> IDEMPOTENT = EnumSet.of(Operation.LIST, Operation.LIST_PAGE,
+            Operation.COUNT, Operation.COUNT_STATUS, Operation.FIND, Operation.MULTI_FIND, Operation.UPDATE,
+            Operation.BATCH_UPDATE);
+
+    private final ProxyPool pool;
+    private final ExecutorService executor;
+
+    public OrdersClient() {
+        this(Constants.LOCALIZATION_HOST, Constants.LOCALIZATION_PORT);
+    }
+
+    public OrdersClient(final String host, final Integer port) {
+        this.pool = new ProxyPool(host, port, Constants.CLIENT_CONNECTIONS);
+
+        final var threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            final var thread = new Thread(task, "orders-client-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ArrayList<Order> list() {
+        return join(listAsync());
+    }
+
+    public CompletableFuture<ArrayList<Order>> listAsync() {
+        return execute(new Request<>(Operation.LIST, Order.class));
+    }
+
+    public Page listPage(final PageRequest page) {
+        return join(listPageAsync(page));
+    }
+
+    public CompletableFuture<Page> listPageAsync(final PageRequest page) {
+        return execute(new Request<>(Operation.LIST_PAGE, page));
+    }
+
+    // Os blocos chegam ao consumidor na ordem da listagem; devolve o total
+    public Long stream(final Consumer<List<Order>> consumer) {
+        return join(streamAsync(consumer));
+    }
+
+    public CompletableFuture<Long> streamAsync(final Consumer<List<Order>> consumer) {
+        // Uma listagem interrompida no meio não é repetida: os blocos já
+        // entregues seriam entregues de novo
+        return CompletableFuture.supplyAsync(() -> {
+            final var proxy = pool.pick();
+            try {
+                final Response<Long> response = pool.channel(proxy).stream(
+                        new Request<>(Operation.LIST_STREAM, Order.class),
+                        chunk -> consumer.accept(itemOf(chunk)));
+                return unwrap(response);
+            } catch (final ConnectionException e) {
+                pool.failed(proxy);
+                throw e;
+            }
+        }, executor);
+    }
+
+    public Long count() {
+        return join(countAsync());
+    }
+
+    public CompletableFuture<Long> countAsync() {
+        return execute(new Request<>(Operation.COUNT, Order.class));
+    }
+
+    public OrderCounts countByStatus() {
+        return join(countByStatusAsync());
+    }
+
+    public CompletableFuture<OrderCounts> countByStatusAsync() {
+        return execute(new Request<>(Operation.COUNT_STATUS, Order.class));
+    }
+
+    // Devolve a ordem com o código atribuído pelo servidor
+    public Order create(final Order order) {
+        return join(createAsync(order));
+    }
+
+    public CompletableFuture<Order> createAsync(final Order order) {
+        return execute(new Request<>(Operation.CREATE, order));
+    }
+
+    public ArrayList<Order> createAll(final List<Order> orders) {
+        return join(createAllAsync(orders));
+    }
+
+    public CompletableFuture<ArrayList<Order>> createAllAsync(final List<Order> orders) {
+        return execute(new Request<>(Operation.BATCH_CREATE, new ArrayList<>(orders)));
+    }
+
+    // Lança NotFoundException se a ordem não existe
+    public Order find(final Long code) {
+        return join(findAsync(code));
+    }
+
+    public CompletableFuture<Order> findAsync(final Long code) {
+        return execute(new Request<>(Operation.FIND, new Order().setCode(code)));
+    }
+
+    // Códigos inexistentes ficam de fora do resultado
+    public ArrayList<Order> findAll(final List<Long> codes) {
+        return join(findAllAsync(codes));
+    }
+
+    public CompletableFuture<ArrayList<Order>> findAllAsync(final List<Long> codes) {
+        return execute(new Request<>(Operation.MULTI_FIND, new ArrayList<>(codes)));
+    }
+
+    public void update(final Order order) {
+        join(updateAsync(order));
+    }
+
+    public CompletableFuture<Void> updateAsync(final Order order) {
+        return this.<Serializable>execute(new Request<>(Operation.UPDATE, order)).thenApply(item -> null);
+    }
+
+    public Long updateAll(final List<Order> orders) {
+        return join(updateAllAsync(orders));
+    }
+
+    public CompletableFuture<Long> updateAllAsync(final List<Order> orders) {
+        return execute(new Request<>(Operation.BATCH_UPDATE, new ArrayList<>(orders)));
+    }
+
+    public void delete(final Order order) {
+        join(deleteAsync(order));
+    }
+
+    public CompletableFuture<Void> deleteAsync(final Order order) {
+        return this.<Serializable>execute(new Request<>(Operation.DELETE, order)).thenApply(item -> null);
+    }
+
+    public Long deleteAll(final List<Order> orders) {
+        return join(deleteAllAsync(orders));
+    }
+
+    public CompletableFuture<Long> deleteAllAsync(final List<Order> orders) {
+        return execute(new Request<>(Operation.BATCH_DELETE, new ArrayList<>(orders)));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pool.close();
+    }
+
+    private <O extends Serializable> CompletableFuture<O> execute(final Request<? extends Serializable> request) {
+        final var result = new CompletableFuture<O>();
+        attempt(request, 0, result);
+        return result;
+    }
+
+    private <O extends Serializable> void attempt(final Request<? extends Serializable> request, final int attempt,
+            final CompletableFuture<O> result) {
+        InetSocketAddress proxy = null;
+        final CompletableFuture<Response<O>> sent;
+
+        try {
+            proxy = pool.pick();
+            sent = pool.channel(proxy).send(request);
+        } catch (final ConnectionException e) {
+            // Nada foi enviado, então repetir é seguro
+            if (proxy != null) {
+                pool.failed(proxy);
+            }
+            retry(request, attempt, result, e);
+            return;
+        }
+
+        final var target = proxy;
+        sent.orTimeout(Constants.CLIENT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((response, error) -> {
+                    if (error != null) {
+                        pool.failed(target);
+                        if (IDEMPOTENT.contains(request.getOperation())) {
+                            retry(request, attempt, result, error);
+                        } else {
+                            result.completeExceptionally(failure(error));
+                        }
+                    } else if (response.getStatus() == ResponseStatus.OVERLOADED) {
+                        // A requisição foi recusada antes de ser executada
+                        retry(request, attempt, result, new OperationException(response.getMessage()));
+                    } else {
+                        try {
+                            result.complete(unwrap(response));
+                        } catch (final RuntimeException e) {
+                            result.completeExceptionally(e);
+                        }
+                    }
+                }, executor);
+    }
+
+    // Espera aleatória que dobra a cada tentativa, para que clientes que
+    // falharam juntos não voltem todos ao mesmo tempo
+    private <O extends Serializable> void retry(final Request<? extends Serializable> request, final int attempt,
+            final CompletableFuture<O> result, final Throwable cause) {
+        if (attempt >= Constants.CLIENT_RETRIES) {
+            result.completeExceptionally(failure(cause));
+            return;
+        }
+
+        final var ceiling = Math.max(1, Constants.CLIENT_BACKOFF << attempt);
+        final var delay = 1 + ThreadLocalRandom.current().nextInt(ceiling);
+        LOG.warn("Operação {} repetida em {} ms: {}", request.getOperation(), delay, failure(cause).getMessage());
+
+        CompletableFuture.runAsync(() -> attempt(request, attempt + 1, result),
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor));
+    }
+
+    private static RuntimeException failure(final Throwable error) {
+        final var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new ConnectionException("Sem resposta do proxy", cause);
+    }
+
+    private static <O extends Serializable> O unwrap(final Response<O> response) {
+        if (response.getStatus() == ResponseStatus.NOT_FOUND) {
+            throw new NotFoundException();
+        }
+        if (response.getStatus() != ResponseStatus.OK) {
+            throw new OperationException(response.getMessage());
+        }
+        return response.getItem();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Order> itemOf(final Response<? extends Serializable> chunk) {
+        return chunk.getItem() != null ? (List<Order>) chunk.getItem() : List.of();
+    }
+
+    private static <O> O join(final CompletableFuture<O> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            throw failure(e);
+        }
+    }
+
+}
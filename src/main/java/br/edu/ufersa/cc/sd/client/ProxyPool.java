@@ -0,0 +1,132 @@
+package br.edu.ufersa.cc.sd.client;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Lease;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.UpstreamChannel;
+
+// Proxies indicados pela localização, reaproveitados enquanto a lista vale,
+// e as conexões persistentes abertas com cada um. Um proxy que falha sai da
+// lista na hora; sem nenhum, a localização é consultada de novo
+class ProxyPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyPool.class.getSimpleName());
+
+    // Espera (ms) até consultar de novo uma localização que não respondeu
+    private static final Integer RENEW_RETRY = 1_000;
+
+    private final UpstreamChannel localization;
+    private final Integer connections;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<InetSocketAddress> proxies = List.of();
+    private long expiresAt;
+
+    private final Map<InetSocketAddress, UpstreamChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    ProxyPool(final String host, final Integer port, final Integer connections) {
+        this.localization = new UpstreamChannel(host, port, 1);
+        this.connections = connections;
+    }
+
+    // Os proxies da lista são usados em rodízio
+    InetSocketAddress pick() {
+        final List<InetSocketAddress> current;
+
+        lock.lock();
+        try {
+            if (proxies.isEmpty() || expiresAt - System.nanoTime() <= 0) {
+                renew();
+            }
+            current = proxies;
+        } finally {
+            lock.unlock();
+        }
+
+        return current.get(Math.floorMod(next.getAndIncrement(), current.size()));
+    }
+
+    UpstreamChannel channel(final InetSocketAddress proxy) {
+        return channels.computeIfAbsent(proxy,
+                address -> new UpstreamChannel(address.getHostString(), address.getPort(), connections));
+    }
+
+    void failed(final InetSocketAddress proxy) {
+        lock.lock();
+        try {
+            if (proxies.contains(proxy)) {
+                LOG.warn("Proxy {} indisponível, retirado da lista", proxy);
+                final var remaining = new ArrayList<>(proxies);
+                remaining.remove(proxy);
+                proxies = remaining;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        final var channel = channels.remove(proxy);
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        localization.close();
+        channels.values().forEach(UpstreamChannel::close);
+        channels.clear();
+    }
+
+    // Chamado com a trava; se a localização não responder, a lista vencida
+    // continua valendo por mais um pouco enquanto tiver algum proxy
+    private void renew() {
+        try {
+            final Response<Lease> response = localization.call(new Request<>(Operation.LOCALIZE_LEASE, Order.class));
+            final var lease = response.getItem();
+
+            if (response.getStatus() == ResponseStatus.OK && lease != null && !lease.getAddresses().isEmpty()) {
+                LOG.info("Proxies disponíveis: {}", lease.getAddresses());
+                proxies = List.copyOf(lease.getAddresses());
+                expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lease.getTtl());
+
+                // Conexões com proxies que saíram da lista são encerradas
+                channels.entrySet().removeIf(entry -> {
+                    if (proxies.contains(entry.getKey())) {
+                        return false;
+                    }
+                    entry.getValue().close();
+                    return true;
+                });
+                return;
+            }
+        } catch (final ConnectionException e) {
+            if (proxies.isEmpty()) {
+                throw e;
+            }
+            LOG.warn("Localização indisponível, mantendo a lista anterior: {}", e.getMessage());
+        }
+
+        if (proxies.isEmpty()) {
+            throw new ConnectionException("Nenhum proxy disponível");
+        }
+        expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RENEW_RETRY);
+    }
+
+}
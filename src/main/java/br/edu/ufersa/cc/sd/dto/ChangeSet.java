@@ -0,0 +1,33 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import br.edu.ufersa.cc.sd.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeSet implements Serializable {
+
+    private Long epoch;
+
+    // Posição do servidor principal coberta por estas alterações
+    private Long sequence;
+
+    // Verdadeiro na primeira parte da cópia da base: a réplica descarta tudo
+    // o que tinha antes de aplicar as ordens
+    private Boolean snapshot;
+
+    // Estado atual das ordens alteradas e códigos das ordens excluídas
+    private ArrayList<Order> orders;
+    private ArrayList<Long> deleted;
+
+    // Código da última ordem enviada quando a cópia da base continua na
+    // próxima parte; nulo quando terminou ou quando não é uma cópia
+    private Long next;
+
+}
@@ -0,0 +1,21 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Proxies disponíveis, do menos ao mais ocupado, e por quanto tempo (ms) o
+// cliente pode reaproveitar a lista antes de consultar a localização de novo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Lease implements Serializable {
+
+    private ArrayList<InetSocketAddress> addresses;
+    private Long ttl;
+
+}
@@ -0,0 +1,18 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCounts implements Serializable {
+
+    private Long total;
+    private Long done;
+    private Long pending;
+
+}
@@ -0,0 +1,21 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import br.edu.ufersa.cc.sd.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Page implements Serializable {
+
+    private ArrayList<Order> items;
+
+    // Cursor da página seguinte; nulo na última página
+    private String next;
+
+}
@@ -0,0 +1,20 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageRequest implements Serializable {
+
+    // Quantidade de ordens por página; nulo usa o tamanho padrão
+    private Integer size;
+
+    // Valor recebido em Page.next; nulo para a primeira página
+    private String cursor;
+
+}
@@ -0,0 +1,19 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Endereço de um proxy e a quantidade de requisições que ele atende no momento
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Registration implements Serializable {
+
+    private String host;
+    private Integer port;
+    private Integer load;
+
+}
@@ -0,0 +1,28 @@
+package br.edu.ufersa.cc.sd.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaPosition implements Serializable {
+
+    // Execução do servidor principal a que a sequência se refere; nulo numa réplica nova
+    private Long epoch;
+
+    // Última alteração já aplicada pela réplica
+    private Long sequence;
+
+    // Durante a cópia da base: código da última ordem já copiada, e a
+    // sequência é a do início da cópia; nulo fora dela
+    private Long after;
+
+    public ReplicaPosition(final Long epoch, final Long sequence) {
+        this(epoch, sequence, null);
+    }
+
+}
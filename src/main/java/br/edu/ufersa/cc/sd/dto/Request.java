@@ -12,6 +12,9 @@ public class Request<I extends Serializable> implements Serializable {
     private final I item;
     private final Class<I> type;
 
+    // Identifica a requisição quando várias trafegam pela mesma conexão
+    private Long correlationId;
+
     @SuppressWarnings("unchecked")
     public Request(final Operation operation, final I item) {
         this.operation = operation;
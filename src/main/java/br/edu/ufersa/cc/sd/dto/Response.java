@@ -15,6 +15,9 @@ public class Response<T extends Serializable> implements Serializable {
     private final T item;
     private final Class<T> type;
 
+    // Repete o identificador da requisição que originou esta resposta
+    private Long correlationId;
+
     public Response(ResponseStatus status) {
         this.status = status;
         this.message = null;
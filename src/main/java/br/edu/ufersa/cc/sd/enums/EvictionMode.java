@@ -0,0 +1,10 @@
+package br.edu.ufersa.cc.sd.enums;
+
+public enum EvictionMode {
+
+    FIFO,
+    LRU,
+    LFU,
+    TINY_LFU;
+
+}
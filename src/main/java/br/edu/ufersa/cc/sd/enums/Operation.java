@@ -8,6 +8,20 @@ public enum Operation {
     FIND,
     UPDATE,
     DELETE,
-    COUNT;
+    COUNT,
+    LIST_PAGE,
+    LIST_STREAM,
+    COUNT_STATUS,
+    BATCH_CREATE,
+    BATCH_UPDATE,
+    BATCH_DELETE,
+    MULTI_FIND,
+    LOCALIZE_LEASE,
+    REGISTER,
+    HEARTBEAT,
+    DEREGISTER,
+    REPLICATE,
+    REPLICA_STATUS,
+    SUBSCRIBE;
 
 }
@@ -3,6 +3,15 @@ package br.edu.ufersa.cc.sd.enums;
 public enum ResponseStatus {
 
     OK,
-    ERROR;
+    ERROR,
+
+    // Usado entre os servidores para diferenciar a ausência da ordem de uma falha
+    NOT_FOUND,
+
+    // Parte de uma resposta transmitida em blocos; a resposta final vem com outro status
+    CHUNK,
+
+    // Requisição recusada sem ser executada por falta de vaga; pode ser repetida
+    OVERLOADED;
 
 }
@@ -0,0 +1,9 @@
+package br.edu.ufersa.cc.sd.enums;
+
+public enum TransportMode {
+
+    THREAD,
+    VIRTUAL,
+    NIO;
+
+}
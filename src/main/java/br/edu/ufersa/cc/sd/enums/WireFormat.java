@@ -0,0 +1,8 @@
+package br.edu.ufersa.cc.sd.enums;
+
+public enum WireFormat {
+
+    JAVA,
+    BINARY;
+
+}
@@ -2,6 +2,7 @@ package br.edu.ufersa.cc.sd.models;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 
 import br.edu.ufersa.cc.sd.utils.JsonUtils;
 import jakarta.persistence.Column;
@@ -18,6 +19,12 @@ import lombok.NoArgsConstructor;
 @Table(name = "orders")
 public class Order implements Serializable {
 
+    // Ordem das listagens: mais recentes primeiro e, na mesma data, maior código primeiro
+    public static final Comparator<Order> LISTING_ORDER = Comparator
+            .comparing(Order::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Order::getCode, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .reversed();
+
     @Id
     @GeneratedValue
     private Long code;
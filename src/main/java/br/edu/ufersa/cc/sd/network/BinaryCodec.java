@@ -0,0 +1,497 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import br.edu.ufersa.cc.sd.dto.ChangeSet;
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
+import br.edu.ufersa.cc.sd.dto.Page;
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.models.Order;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Formato binário compacto para requisições e respostas: códigos e números
+// como varint, datas em milissegundos e textos em UTF-8. Tipos sem
+// codificação própria seguem pela serialização do Java
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class BinaryCodec {
+
+    private static final byte REQUEST = 1;
+    private static final byte RESPONSE = 2;
+
+    // Marcadores de tipo dos itens
+    private static final int NULL = 0;
+    private static final int ORDER = 1;
+    private static final int LONG = 2;
+    private static final int STRING = 3;
+    private static final int LIST = 4;
+    private static final int ADDRESS = 5;
+    private static final int PAGE_REQUEST = 6;
+    private static final int PAGE = 7;
+    private static final int COUNTS = 8;
+    private static final int POSITION = 9;
+    private static final int CHANGES = 10;
+    private static final int JAVA = 15;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final ResponseStatus[] STATUSES = ResponseStatus.values();
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Cada thread reaproveita o próprio buffer de escrita
+    private static final Integer BUFFER_SIZE = 512;
+    private static final Integer MAX_RETAINED = 64 * 1024;
+    private static final ThreadLocal<Writer> WRITERS = ThreadLocal.withInitial(() -> new Writer(BUFFER_SIZE));
+
+    public static byte[] encode(final Object message) {
+        final var writer = WRITERS.get();
+        writer.clear();
+
+        if (message instanceof Request) {
+            writeRequest(writer, (Request<?>) message);
+        } else if (message instanceof Response) {
+            writeResponse(writer, (Response<?>) message);
+        } else {
+            throw new ConnectionException("Mensagem não suportada: " + message.getClass().getSimpleName());
+        }
+
+        final var result = writer.toByteArray();
+        if (writer.capacity() > MAX_RETAINED) {
+            WRITERS.remove();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(final byte[] payload) {
+        final var reader = ByteBuffer.wrap(payload);
+
+        try {
+            switch (reader.get()) {
+                case REQUEST:
+                    return (T) readRequest(reader);
+
+                case RESPONSE:
+                    return (T) readResponse(reader);
+
+                default:
+                    throw new ConnectionException("Mensagem não reconhecida");
+            }
+        } catch (final RuntimeException e) {
+            if (e instanceof ConnectionException) {
+                throw e;
+            }
+            throw new ConnectionException("Não foi possível interpretar a mensagem", e);
+        }
+    }
+
+    private static void writeRequest(final Writer writer, final Request<?> request) {
+        writer.put(REQUEST);
+        writer.putVarint(request.getOperation().ordinal());
+        writer.putOptionalLong(request.getCorrelationId());
+        writeType(writer, request.getType());
+        writeItem(writer, request.getItem());
+    }
+
+    private static void writeResponse(final Writer writer, final Response<?> response) {
+        writer.put(RESPONSE);
+        writer.putVarint(response.getStatus().ordinal());
+        writer.putOptionalLong(response.getCorrelationId());
+        writer.putString(response.getMessage());
+        writeType(writer, response.getType());
+        writeItem(writer, response.getItem());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Request<?> readRequest(final ByteBuffer reader) {
+        final var operation = OPERATIONS[readVarint(reader)];
+        final var correlationId = readOptionalLong(reader);
+        final var type = (Class) readType(reader);
+        final var item = (Serializable) readItem(reader);
+
+        final Request<?> request = item != null ? new Request<>(operation, item) : new Request<>(operation, type);
+        request.setCorrelationId(correlationId);
+        return request;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Response<?> readResponse(final ByteBuffer reader) {
+        final var status = STATUSES[readVarint(reader)];
+        final var correlationId = readOptionalLong(reader);
+        final var message = readString(reader);
+        final var type = (Class) readType(reader);
+        final var item = (Serializable) readItem(reader);
+
+        return new Response(status, message, item, type, correlationId);
+    }
+
+    private static void writeType(final Writer writer, final Class<?> type) {
+        final var tag = tagOf(type);
+        writer.putVarint(tag);
+        if (tag == JAVA) {
+            writer.putString(type.getName());
+        }
+    }
+
+    private static Class<?> readType(final ByteBuffer reader) {
+        final var tag = readVarint(reader);
+        switch (tag) {
+            case NULL:
+                return null;
+            case ORDER:
+                return Order.class;
+            case LONG:
+                return Long.class;
+            case STRING:
+                return String.class;
+            case LIST:
+                return ArrayList.class;
+            case ADDRESS:
+                return InetSocketAddress.class;
+            case PAGE_REQUEST:
+                return PageRequest.class;
+            case PAGE:
+                return Page.class;
+            case COUNTS:
+                return OrderCounts.class;
+            case POSITION:
+                return ReplicaPosition.class;
+            case CHANGES:
+                return ChangeSet.class;
+            case JAVA:
+                try {
+                    return Class.forName(readString(reader));
+                } catch (final ClassNotFoundException e) {
+                    throw new ConnectionException("Tipo não reconhecido", e);
+                }
+            default:
+                throw new ConnectionException("Marcador de tipo inválido: " + tag);
+        }
+    }
+
+    private static int tagOf(final Class<?> type) {
+        if (type == null) {
+            return NULL;
+        } else if (type == Order.class) {
+            return ORDER;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == String.class) {
+            return STRING;
+        } else if (type == ArrayList.class) {
+            return LIST;
+        } else if (type == InetSocketAddress.class) {
+            return ADDRESS;
+        } else if (type == PageRequest.class) {
+            return PAGE_REQUEST;
+        } else if (type == Page.class) {
+            return PAGE;
+        } else if (type == OrderCounts.class) {
+            return COUNTS;
+        } else if (type == ReplicaPosition.class) {
+            return POSITION;
+        } else if (type == ChangeSet.class) {
+            return CHANGES;
+        } else {
+            return JAVA;
+        }
+    }
+
+    private static void writeItem(final Writer writer, final Object item) {
+        final var tag = tagOf(item != null ? item.getClass() : null);
+        writer.putVarint(tag);
+
+        switch (tag) {
+            case ORDER:
+                writeOrder(writer, (Order) item);
+                break;
+
+            case LONG:
+                writer.putVarlong((Long) item);
+                break;
+
+            case STRING:
+                writer.putString((String) item);
+                break;
+
+            case LIST:
+                final var list = (List<?>) item;
+                writer.putVarint(list.size());
+                list.forEach(element -> writeItem(writer, element));
+                break;
+
+            case ADDRESS:
+                final var address = (InetSocketAddress) item;
+                writer.putString(address.getHostString());
+                writer.putVarint(address.getPort());
+                break;
+
+            case PAGE_REQUEST:
+                final var pageRequest = (PageRequest) item;
+                writer.putOptionalLong(pageRequest.getSize() != null ? pageRequest.getSize().longValue() : null);
+                writer.putString(pageRequest.getCursor());
+                break;
+
+            case PAGE:
+                final var page = (Page) item;
+                writeItem(writer, page.getItems());
+                writer.putString(page.getNext());
+                break;
+
+            case COUNTS:
+                final var counts = (OrderCounts) item;
+                writer.putOptionalLong(counts.getTotal());
+                writer.putOptionalLong(counts.getDone());
+                writer.putOptionalLong(counts.getPending());
+                break;
+
+            case POSITION:
+                final var position = (ReplicaPosition) item;
+                writer.putOptionalLong(position.getEpoch());
+                writer.putOptionalLong(position.getSequence());
+                writer.putOptionalLong(position.getAfter());
+                break;
+
+            case CHANGES:
+                final var changes = (ChangeSet) item;
+                writer.putOptionalLong(changes.getEpoch());
+                writer.putOptionalLong(changes.getSequence());
+                writer.putVarint(Boolean.TRUE.equals(changes.getSnapshot()) ? 1 : 0);
+                writeItem(writer, changes.getOrders());
+                writeItem(writer, changes.getDeleted());
+                writer.putOptionalLong(changes.getNext());
+                break;
+
+            case JAVA:
+                final var bytes = Frames.encode(item);
+                writer.putVarint(bytes.length);
+                writer.put(bytes);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private static Object readItem(final ByteBuffer reader) {
+        final var tag = readVarint(reader);
+
+        switch (tag) {
+            case NULL:
+                return null;
+
+            case ORDER:
+                return readOrder(reader);
+
+            case LONG:
+                return readVarlong(reader);
+
+            case STRING:
+                return readString(reader);
+
+            case LIST:
+                final var size = readVarint(reader);
+                final var list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readItem(reader));
+                }
+                return list;
+
+            case ADDRESS:
+                final var host = readString(reader);
+                return new InetSocketAddress(host, readVarint(reader));
+
+            case PAGE_REQUEST:
+                final var pageSize = readOptionalLong(reader);
+                return new PageRequest(pageSize != null ? pageSize.intValue() : null, readString(reader));
+
+            case PAGE:
+                @SuppressWarnings("unchecked")
+                final var items = (ArrayList<Order>) readItem(reader);
+                return new Page(items, readString(reader));
+
+            case COUNTS:
+                return new OrderCounts(readOptionalLong(reader), readOptionalLong(reader), readOptionalLong(reader));
+
+            case POSITION:
+                return new ReplicaPosition(readOptionalLong(reader), readOptionalLong(reader),
+                        readOptionalLong(reader));
+
+            case CHANGES:
+                final var epoch = readOptionalLong(reader);
+                final var sequence = readOptionalLong(reader);
+                final var snapshot = readVarint(reader) == 1;
+                @SuppressWarnings("unchecked")
+                final var orders = (ArrayList<Order>) readItem(reader);
+                @SuppressWarnings("unchecked")
+                final var deleted = (ArrayList<Long>) readItem(reader);
+                return new ChangeSet(epoch, sequence, snapshot, orders, deleted, readOptionalLong(reader));
+
+            case JAVA:
+                final var bytes = new byte[readVarint(reader)];
+                reader.get(bytes);
+                return Frames.decode(bytes);
+
+            default:
+                throw new ConnectionException("Marcador de tipo inválido: " + tag);
+        }
+    }
+
+    private static void writeOrder(final Writer writer, final Order order) {
+        writer.putOptionalLong(order.getCode());
+        writer.putString(order.getName());
+        writer.putString(order.getDescription());
+        writer.putOptionalLong(toMillis(order.getCreatedAt()));
+        writer.putOptionalLong(toMillis(order.getDoneAt()));
+    }
+
+    private static Order readOrder(final ByteBuffer reader) {
+        return new Order()
+                .setCode(readOptionalLong(reader))
+                .setName(readString(reader))
+                .setDescription(readString(reader))
+                .setCreatedAt(fromMillis(readOptionalLong(reader)))
+                .setDoneAt(fromMillis(readOptionalLong(reader)));
+    }
+
+    private static Long toMillis(final LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZONE).toInstant().toEpochMilli() : null;
+    }
+
+    private static LocalDateTime fromMillis(final Long millis) {
+        return millis != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE) : null;
+    }
+
+    private static int readVarint(final ByteBuffer reader) {
+        return (int) readUnsigned(reader);
+    }
+
+    private static long readVarlong(final ByteBuffer reader) {
+        final var raw = readUnsigned(reader);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    // Zero representa ausência; os demais valores vêm deslocados em um
+    private static Long readOptionalLong(final ByteBuffer reader) {
+        final var raw = readUnsigned(reader);
+        if (raw == 0) {
+            return null;
+        }
+
+        final var value = raw - 1;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static String readString(final ByteBuffer reader) {
+        final var size = readVarint(reader);
+        if (size == 0) {
+            return null;
+        }
+
+        final var string = new String(reader.array(), reader.arrayOffset() + reader.position(), size - 1,
+                StandardCharsets.UTF_8);
+        reader.position(reader.position() + size - 1);
+        return string;
+    }
+
+    private static long readUnsigned(final ByteBuffer reader) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final var current = reader.get();
+            result |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ConnectionException("Varint mal formado");
+    }
+
+    private static class Writer {
+
+        private byte[] buffer;
+        private int size;
+
+        public Writer(final int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public int capacity() {
+            return buffer.length;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        public void put(final byte value) {
+            ensure(1);
+            buffer[size++] = value;
+        }
+
+        public void put(final byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, buffer, size, values.length);
+            size += values.length;
+        }
+
+        public void putVarint(final int value) {
+            putUnsigned(value & 0xFFFFFFFFL);
+        }
+
+        public void putVarlong(final long value) {
+            putUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        public void putOptionalLong(final Long value) {
+            putUnsigned(value == null ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+        }
+
+        // Comprimento deslocado em um, para que zero represente ausência
+        public void putString(final String value) {
+            if (value == null) {
+                putVarint(0);
+                return;
+            }
+
+            final var bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length + 1);
+            put(bytes);
+        }
+
+        private void putUnsigned(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void ensure(final int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,303 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.utils.Constants;
+import br.edu.ufersa.cc.sd.utils.Threads;
+
+// Uma thread (do sistema ou virtual) por conexão, aceitando tanto clientes que
+// enviam objetos diretamente pelo socket quanto clientes que usam o protocolo em quadros
+public class BlockingTransport extends Transport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BlockingTransport.class.getSimpleName());
+
+    private ServerSocket serverSocket;
+    private final Executor connections = Threads.perConnection();
+    private WorkerPool workers;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    // Cada conexão ocupa uma thread, então o número de conexões também é limitado
+    private final Semaphore connectionSlots = new Semaphore(Constants.MAX_CONNECTIONS);
+
+    public BlockingTransport(final String name, final Integer port, final RequestHandler handler) {
+        super(name, port, handler);
+    }
+
+    @Override
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        alive = true;
+
+        workers = new WorkerPool();
+
+        final var socket = serverSocket;
+        new Thread(() -> waitForClients(socket), name + "-acceptor").start();
+    }
+
+    @Override
+    public void stop() {
+        if (serverSocket != null && !serverSocket.isClosed()) {
+            try {
+                serverSocket.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Conexões persistentes também precisam ser encerradas
+        clients.forEach(this::close);
+
+        alive = false;
+        serverSocket = null;
+
+        // As threads fixas dos trabalhadores não são daemon e manteriam o processo vivo
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
+    private void waitForClients(final ServerSocket serverSocket) {
+        try {
+            while (alive) {
+                LOG.info("Aguardando clientes...");
+                final var client = serverSocket.accept();
+                if (!connectionSlots.tryAcquire()) {
+                    LOG.warn("Limite de conexões atingido, recusando {}", client.getInetAddress());
+                    close(client);
+                    continue;
+                }
+
+                connections.execute(() -> {
+                    try {
+                        handleClient(client);
+                    } finally {
+                        connectionSlots.release();
+                    }
+                });
+            }
+        } catch (final SocketException e) {
+            LOG.info("Servidor encerrado");
+        } catch (final IOException e) {
+            LOG.error("Erro ao aceitar novos clientes", e);
+        }
+    }
+
+    private void handleClient(final Socket client) {
+        LOG.info("Cliente conectado: {}", client.getInetAddress());
+        clients.add(client);
+        final var session = new Session();
+
+        try {
+            client.setTcpNoDelay(true);
+            client.setSoTimeout(Constants.SESSION_IDLE_TIMEOUT);
+            final var input = new BufferedInputStream(client.getInputStream());
+            final var buffered = new BufferedOutputStream(client.getOutputStream());
+
+            // O cabeçalho de objetos é enviado logo de início, como os clientes antigos esperam
+            final var output = new ObjectOutputStream(buffered);
+            output.flush();
+
+            input.mark(2);
+            final var legacy = Frames.isLegacy(input.read(), input.read());
+            input.reset();
+
+            if (legacy) {
+                serveObjects(session, new ObjectInputStream(input), output);
+            } else {
+                serveFrames(session, new DataInputStream(input), buffered);
+            }
+
+            session.awaitPending();
+        } catch (final EOFException | SocketException e) {
+            LOG.info("Cliente encerrado: {}", client.getInetAddress());
+        } catch (final IOException | ConnectionException e) {
+            LOG.error("Erro ao atender cliente", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clients.remove(client);
+            close(client);
+        }
+    }
+
+    private void serveObjects(final Session session, final ObjectInputStream input, final ObjectOutputStream output)
+            throws IOException {
+        final var writeLock = new ReentrantLock();
+
+        serve(session, () -> {
+            try {
+                return (Request<?>) input.readObject();
+            } catch (final ClassNotFoundException e) {
+                throw new IOException("Mensagem não reconhecida", e);
+            }
+        }, response -> {
+            writeLock.lock();
+            try {
+                output.writeObject(response);
+                output.reset();
+                output.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    private void serveFrames(final Session session, final DataInputStream input, final OutputStream output)
+            throws IOException {
+        final var handshake = new byte[Frames.HANDSHAKE_SIZE];
+        input.readFully(handshake);
+
+        final var code = Frames.negotiate(ByteBuffer.wrap(handshake));
+        output.write(code);
+        output.flush();
+        if (code == Frames.REJECTED) {
+            LOG.warn("Protocolo recusado");
+            return;
+        }
+
+        final var format = Frames.formatOf(code);
+        final var writeLock = new ReentrantLock();
+
+        serve(session, () -> Frames.decode(Frames.read(input), format), response -> {
+            final var payload = Frames.encode(response, format);
+            writeLock.lock();
+            try {
+                Frames.write(output, payload);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    // A conexão permanece aberta para as próximas requisições até o cliente
+    // encerrá-la, ficar ociosa ou atingir o limite da sessão; requisições
+    // identificadas são atendidas em paralelo e respondidas fora de ordem
+    private void serve(final Session session, final Source source, final Sink sink) throws IOException {
+        var open = true;
+
+        while (alive && open) {
+            LOG.info("Aguardando mensagens...");
+
+            final Request<? extends Serializable> request;
+            try {
+                request = source.next();
+            } catch (final SocketTimeoutException e) {
+                if (session.hasPending()) {
+                    continue;
+                }
+                LOG.info("Sessão ociosa encerrada");
+                return;
+            }
+
+            open = session.begin();
+            final var admitted = execute(request, () -> {
+                try {
+                    sink.send(dispatch(request, partial -> {
+                        try {
+                            sink.send(partial);
+                        } catch (final IOException e) {
+                            throw new ConnectionException("Erro ao enviar resposta parcial", e);
+                        }
+                    }));
+                } finally {
+                    session.end();
+                }
+            });
+
+            if (!admitted) {
+                session.end();
+                final var response = new Response<>(ResponseStatus.OVERLOADED, "Servidor sobrecarregado");
+                response.setCorrelationId(request.getCorrelationId());
+                sink.send(response);
+            }
+        }
+
+        if (!open) {
+            LOG.info("Limite de requisições da sessão atingido");
+        }
+    }
+
+    // Toda requisição passa pelas vagas dos trabalhadores; as sem identificador
+    // são aguardadas aqui mesmo, para que as respostas sigam a ordem dos pedidos
+    private boolean execute(final Request<? extends Serializable> request, final Reply reply) throws IOException {
+        final var done = new CompletableFuture<Void>();
+        final Runnable task = () -> {
+            try {
+                reply.send();
+            } catch (final IOException e) {
+                LOG.error("Erro ao enviar resposta", e);
+            } finally {
+                done.complete(null);
+            }
+        };
+
+        final var pool = workers;
+        if (pool == null || !pool.trySubmit(request, task)) {
+            return false;
+        }
+
+        if (request.getCorrelationId() == null) {
+            try {
+                done.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrompido aguardando resposta", e);
+            } catch (final ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return true;
+    }
+
+    private void close(final Socket client) {
+        try {
+            client.close();
+        } catch (final IOException e) {
+            LOG.debug("Erro ao fechar conexão", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Reply {
+        void send() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        Request<? extends Serializable> next() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void send(Response<? extends Serializable> response) throws IOException;
+    }
+
+}
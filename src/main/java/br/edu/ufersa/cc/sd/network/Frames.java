@@ -0,0 +1,132 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import br.edu.ufersa.cc.sd.enums.WireFormat;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.utils.Constants;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Protocolo em quadros: após um cabeçalho de apresentação, em que cliente e
+// servidor combinam o formato das mensagens, cada mensagem trafega precedida
+// pelo seu tamanho, o que permite lê-la sem bloquear
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Frames {
+
+    // "ORDR"
+    public static final int MAGIC = 0x4F524452;
+    public static final byte VERSION = 1;
+    public static final byte REJECTED = -1;
+    public static final int HANDSHAKE_SIZE = 6;
+
+    private static final WireFormat[] FORMATS = WireFormat.values();
+
+    // Toda conexão por ObjectOutputStream começa com esses bytes
+    public static boolean isLegacy(final int first, final int second) {
+        return first == 0xAC && second == 0xED;
+    }
+
+    public static byte[] handshake(final WireFormat format) {
+        return ByteBuffer.allocate(HANDSHAKE_SIZE).putInt(MAGIC).put(VERSION).put((byte) format.ordinal()).array();
+    }
+
+    // Aceita o formato proposto pelo cliente ou, se ele for desconhecido, a serialização do Java
+    public static byte negotiate(final ByteBuffer handshake) {
+        if (handshake.getInt() != MAGIC || handshake.get() != VERSION) {
+            return REJECTED;
+        }
+
+        final var format = handshake.get();
+        return format >= 0 && format < FORMATS.length ? format : (byte) WireFormat.JAVA.ordinal();
+    }
+
+    public static WireFormat formatOf(final byte code) {
+        return FORMATS[code];
+    }
+
+    public static WireFormat connect(final OutputStream output, final DataInputStream input,
+            final WireFormat format) throws IOException {
+        output.write(handshake(format));
+        output.flush();
+
+        var reply = input.readByte();
+
+        // Servidores de uma thread por conexão enviam antes o cabeçalho de objetos
+        if ((reply & 0xFF) == 0xAC) {
+            input.readFully(new byte[3]);
+            reply = input.readByte();
+        }
+
+        if (reply == REJECTED) {
+            throw new ConnectionException("O servidor recusou o protocolo");
+        }
+
+        return formatOf(reply);
+    }
+
+    public static byte[] encode(final Object message, final WireFormat format) {
+        return format == WireFormat.BINARY ? BinaryCodec.encode(message) : encode(message);
+    }
+
+    public static <T> T decode(final byte[] payload, final WireFormat format) {
+        return format == WireFormat.BINARY ? BinaryCodec.decode(payload) : decode(payload);
+    }
+
+    public static byte[] encode(final Object message) {
+        try (final var bytes = new ByteArrayOutputStream(256);
+                final var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(message);
+            output.flush();
+            return bytes.toByteArray();
+        } catch (final IOException e) {
+            throw new ConnectionException("Não foi possível serializar a mensagem", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(final byte[] payload) {
+        try (final var input = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (T) input.readObject();
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new ConnectionException("Não foi possível interpretar a mensagem", e);
+        }
+    }
+
+    public static ByteBuffer frame(final byte[] payload) {
+        final var buffer = ByteBuffer.allocate(Integer.BYTES + payload.length);
+        buffer.putInt(payload.length).put(payload).flip();
+        return buffer;
+    }
+
+    // Escreve direto no fluxo com buffer: os métodos de DataOutputStream são
+    // synchronized e prenderiam a thread virtual enquanto o socket estiver cheio
+    public static void write(final OutputStream output, final byte[] payload) throws IOException {
+        output.write(ByteBuffer.allocate(Integer.BYTES).putInt(payload.length).array());
+        output.write(payload);
+        output.flush();
+    }
+
+    public static byte[] read(final DataInputStream input) throws IOException {
+        final var size = input.readInt();
+        if (!isValidSize(size)) {
+            throw new IOException("Tamanho de quadro inválido: " + size);
+        }
+
+        final var payload = new byte[size];
+        input.readFully(payload);
+        return payload;
+    }
+
+    public static boolean isValidSize(final int size) {
+        return size > 0 && size <= Constants.MAX_FRAME_SIZE;
+    }
+
+}
@@ -0,0 +1,503 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.enums.WireFormat;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Laços de eventos sobre seletores: as conexões são distribuídas entre poucas
+// threads de E/S e as requisições são executadas por um conjunto fixo de
+// threads, de modo que o número de threads não depende do número de clientes
+public class NioTransport extends Transport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioTransport.class.getSimpleName());
+
+    private static final Integer READ_BUFFER_SIZE = 64 * 1024;
+    private static final Integer BACKLOG = 1024;
+    private static final Integer SWEEP_INTERVAL = 1000;
+
+    private final List<ServerSocketChannel> acceptors = new ArrayList<>();
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private IoLoop[] loops;
+    private WorkerPool workers;
+
+    public NioTransport(final String name, final Integer port, final RequestHandler handler) {
+        super(name, port, handler);
+    }
+
+    @Override
+    public void start() throws IOException {
+        alive = true;
+
+        workers = new WorkerPool();
+
+        loops = new IoLoop[Constants.IO_THREADS];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop();
+            new Thread(loops[i], name + "-io-" + i).start();
+        }
+
+        // Vários aceitadores só são possíveis se o sistema permitir reusar a porta
+        var count = Constants.ACCEPTORS;
+        try (final var probe = ServerSocketChannel.open()) {
+            if (count > 1 && !probe.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                LOG.warn("SO_REUSEPORT indisponível, usando apenas um aceitador");
+                count = 1;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            final var acceptor = ServerSocketChannel.open();
+            if (count > 1) {
+                acceptor.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            acceptor.bind(new InetSocketAddress(port), BACKLOG);
+            acceptors.add(acceptor);
+
+            new Thread(() -> waitForClients(acceptor), name + "-acceptor-" + i).start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        alive = false;
+
+        acceptors.forEach(acceptor -> {
+            try {
+                acceptor.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        });
+        acceptors.clear();
+
+        if (loops != null) {
+            for (final var loop : loops) {
+                loop.close();
+            }
+            loops = null;
+        }
+
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
+    private void waitForClients(final ServerSocketChannel acceptor) {
+        try {
+            while (alive) {
+                final var client = acceptor.accept();
+                client.configureBlocking(false);
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                final var loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+                loop.register(client);
+            }
+        } catch (final ClosedChannelException e) {
+            LOG.info("Servidor encerrado");
+        } catch (final IOException e) {
+            LOG.error("Erro ao aceitar novos clientes", e);
+        }
+    }
+
+    private class IoLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        // Compartilhado pelas conexões do laço: só os quadros incompletos ocupam memória própria
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        public IoLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        public void register(final SocketChannel client) {
+            execute(() -> {
+                try {
+                    final var connection = new Connection(this, client);
+                    connection.key = client.register(selector, SelectionKey.OP_READ, connection);
+                    LOG.info("Cliente conectado: {}", client.getRemoteAddress());
+                } catch (final IOException e) {
+                    LOG.error("Erro ao registrar cliente", e);
+                }
+            });
+        }
+
+        public void execute(final Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        public void close() {
+            execute(this::shutdown);
+        }
+
+        @Override
+        public void run() {
+            var lastSweep = System.currentTimeMillis();
+
+            try {
+                while (alive) {
+                    selector.select(SWEEP_INTERVAL);
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    final var keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        final var key = keys.next();
+                        keys.remove();
+
+                        final var connection = (Connection) key.attachment();
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+
+                    final var now = System.currentTimeMillis();
+                    if (now - lastSweep >= SWEEP_INTERVAL) {
+                        lastSweep = now;
+                        closeIdle(now);
+                    }
+                }
+            } catch (final IOException | ClosedSelectorException e) {
+                LOG.info("Laço de eventos encerrado");
+            } finally {
+                shutdown();
+            }
+        }
+
+        // Sessões sem requisições em andamento e ociosas além do limite são encerradas
+        private void closeIdle(final long now) {
+            selector.keys().forEach(key -> {
+                final var connection = (Connection) key.attachment();
+                if (key.isValid() && connection.outbound.isEmpty() && connection.session.isIdle(now)) {
+                    LOG.info("Sessão ociosa encerrada");
+                    connection.close();
+                }
+            });
+        }
+
+        private void shutdown() {
+            if (!selector.isOpen()) {
+                return;
+            }
+
+            selector.keys().forEach(key -> ((Connection) key.attachment()).close());
+            try {
+                selector.close();
+            } catch (final IOException e) {
+                LOG.debug("Erro ao fechar seletor", e);
+            }
+        }
+
+    }
+
+    private class Connection {
+
+        private final IoLoop loop;
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        private final ByteBuffer handshake = ByteBuffer.allocate(Frames.HANDSHAKE_SIZE);
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        private ByteBuffer body;
+        private volatile WireFormat format;
+        private boolean ready = false;
+        private boolean paused = false;
+        private boolean closing = false;
+        private final Session session = new Session();
+
+        // Quadros de saída ainda não enviados por completo
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        // Respostas parciais aguardam aqui enquanto houver quadros demais por enviar
+        private final ReentrantLock windowLock = new ReentrantLock();
+        private final Condition windowOpen = windowLock.newCondition();
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        public Connection(final IoLoop loop, final SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+        }
+
+        public void read() {
+            final var buffer = loop.readBuffer;
+            buffer.clear();
+
+            try {
+                if (channel.read(buffer) < 0) {
+                    LOG.info("Cliente encerrado: {}", channel.socket().getInetAddress());
+                    close();
+                    return;
+                }
+            } catch (final IOException e) {
+                close();
+                return;
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining() && !closing) {
+                if (!ready) {
+                    transfer(buffer, handshake);
+                    if (!handshake.hasRemaining() && !accept()) {
+                        return;
+                    }
+                } else if (body == null) {
+                    transfer(buffer, header);
+                    if (!header.hasRemaining()) {
+                        final var size = header.getInt(0);
+                        header.clear();
+
+                        if (!Frames.isValidSize(size)) {
+                            LOG.warn("Quadro inválido recebido de {}", channel.socket().getInetAddress());
+                            close();
+                            return;
+                        }
+                        body = ByteBuffer.allocate(size);
+                    }
+                } else {
+                    transfer(buffer, body);
+                    if (!body.hasRemaining()) {
+                        submit(body.array());
+                        body = null;
+                    }
+                }
+            }
+
+            if (closing && key.isValid()) {
+                // Encerrada a sessão, nada mais é lido e a conexão fecha após as últimas respostas
+                LOG.info("Limite de requisições da sessão atingido");
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                flush();
+            } else if (pending.get() >= Constants.MAX_IN_FLIGHT && key.isValid()) {
+                // Um cliente que não lê as respostas deixa de ser lido até que elas sejam enviadas
+                paused = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        public void flush() {
+            var sent = false;
+            try {
+                ByteBuffer buffer;
+                while ((buffer = outbound.peek()) != null) {
+                    channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        break;
+                    }
+
+                    outbound.poll();
+                    pending.decrementAndGet();
+                    sent = true;
+                }
+            } catch (final IOException e) {
+                close();
+                return;
+            }
+
+            if (sent && waiting.get() > 0) {
+                signalWindow();
+            }
+
+            if (!key.isValid()) {
+                return;
+            }
+
+            if (closing && outbound.isEmpty() && !session.hasPending()) {
+                close();
+                return;
+            }
+
+            var interest = outbound.isEmpty() ? key.interestOps() & ~SelectionKey.OP_WRITE
+                    : key.interestOps() | SelectionKey.OP_WRITE;
+            if (paused && !closing && pending.get() < Constants.MAX_IN_FLIGHT) {
+                paused = false;
+                interest |= SelectionKey.OP_READ;
+            }
+            key.interestOps(interest);
+        }
+
+        public void close() {
+            if (key != null) {
+                key.cancel();
+            }
+
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                LOG.debug("Erro ao fechar conexão", e);
+            }
+
+            body = null;
+            outbound.clear();
+
+            if (waiting.get() > 0) {
+                signalWindow();
+            }
+        }
+
+        private boolean accept() {
+            handshake.flip();
+            final var code = Frames.negotiate(handshake);
+            send(ByteBuffer.wrap(new byte[] { code }));
+
+            if (code == Frames.REJECTED) {
+                LOG.warn("Protocolo recusado");
+                close();
+                return false;
+            }
+
+            format = Frames.formatOf(code);
+            ready = true;
+            return true;
+        }
+
+        private void submit(final byte[] payload) {
+            pending.incrementAndGet();
+            closing = !session.begin();
+
+            if (!workers.trySubmit(() -> process(payload))) {
+                try {
+                    overloaded(Frames.decode(payload, format));
+                } catch (final ConnectionException ex) {
+                    close();
+                } finally {
+                    session.end();
+                }
+            }
+        }
+
+        // O quadro só é decodificado no trabalhador; uma assinatura deixa a
+        // vaga dele logo em seguida e continua na própria thread
+        private void process(final byte[] payload) {
+            final Request<? extends Serializable> request;
+            try {
+                request = Frames.decode(payload, format);
+            } catch (final ConnectionException e) {
+                LOG.error("Erro ao atender cliente", e);
+                loop.execute(this::close);
+                session.end();
+                return;
+            }
+
+            final var pool = workers;
+            if (!WorkerPool.isLongLived(request)) {
+                answer(request);
+            } else if (pool == null || !pool.tryDetach(() -> answer(request))) {
+                try {
+                    overloaded(request);
+                } finally {
+                    session.end();
+                }
+            }
+        }
+
+        // A requisição só deixa de contar como pendente depois que a resposta
+        // está na fila de saída; antes disso, uma sessão encerrada ou o
+        // desligamento do servidor fechariam a conexão sem ela
+        private void answer(final Request<? extends Serializable> request) {
+            try {
+                reply(dispatch(request, this::stream));
+            } catch (final ConnectionException e) {
+                LOG.error("Erro ao atender cliente", e);
+                loop.execute(this::close);
+            } finally {
+                session.end();
+            }
+        }
+
+        private void overloaded(final Request<? extends Serializable> request) {
+            final var response = new Response<>(ResponseStatus.OVERLOADED, "Servidor sobrecarregado");
+            response.setCorrelationId(request.getCorrelationId());
+            reply(response);
+        }
+
+        // Respostas parciais não têm requisição própria, então contam à parte
+        // nos quadros pendentes; quem as produz espera o cliente consumir as anteriores
+        private void stream(final Response<? extends Serializable> partial) {
+            waiting.incrementAndGet();
+            windowLock.lock();
+            try {
+                while (pending.get() >= Constants.MAX_IN_FLIGHT) {
+                    if (!channel.isOpen()) {
+                        throw new ConnectionException("Conexão encerrada durante o envio");
+                    }
+                    windowOpen.await(SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectionException("Envio interrompido", e);
+            } finally {
+                windowLock.unlock();
+                waiting.decrementAndGet();
+            }
+
+            pending.incrementAndGet();
+            reply(partial);
+        }
+
+        private void signalWindow() {
+            windowLock.lock();
+            try {
+                windowOpen.signalAll();
+            } finally {
+                windowLock.unlock();
+            }
+        }
+
+        private void reply(final Response<? extends Serializable> response) {
+            outbound.add(Frames.frame(Frames.encode(response, format)));
+            loop.execute(this::flush);
+        }
+
+        private void send(final ByteBuffer buffer) {
+            pending.incrementAndGet();
+            outbound.add(buffer);
+            flush();
+        }
+
+        private void transfer(final ByteBuffer source, final ByteBuffer target) {
+            final var count = Math.min(source.remaining(), target.remaining());
+            final var slice = source.duplicate();
+            slice.limit(slice.position() + count);
+            target.put(slice);
+            source.position(source.position() + count);
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.Serializable;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+
+@FunctionalInterface
+public interface RequestHandler {
+
+    // O retorno é a resposta final; respostas parciais, se houver, seguem antes pelo sink
+    Response<? extends Serializable> handle(Request<? extends Serializable> request, ResponseSink sink);
+
+}
@@ -0,0 +1,14 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.Serializable;
+
+import br.edu.ufersa.cc.sd.dto.Response;
+
+// Envia respostas parciais antes da resposta final da requisição, como os
+// blocos de uma listagem transmitida aos poucos
+@FunctionalInterface
+public interface ResponseSink {
+
+    void send(Response<? extends Serializable> response);
+
+}
@@ -0,0 +1,72 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Uma conexão atende várias requisições seguidas, até ficar ociosa por tempo
+// demais ou atingir o limite de requisições
+public class Session {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+
+    // Retorna falso quando esta foi a última requisição aceita pela sessão
+    public boolean begin() {
+        lastActivity = System.currentTimeMillis();
+        pending.incrementAndGet();
+        requests.incrementAndGet();
+        return !isExhausted();
+    }
+
+    public void end() {
+        lastActivity = System.currentTimeMillis();
+        if (pending.decrementAndGet() == 0) {
+            lock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public boolean isExhausted() {
+        return Constants.SESSION_MAX_REQUESTS > 0 && requests.get() >= Constants.SESSION_MAX_REQUESTS;
+    }
+
+    public boolean isIdle(final long now) {
+        return Constants.SESSION_IDLE_TIMEOUT > 0 && pending.get() == 0
+                && now - lastActivity >= Constants.SESSION_IDLE_TIMEOUT;
+    }
+
+    public boolean hasPending() {
+        return pending.get() > 0;
+    }
+
+    // Aguarda as respostas em andamento antes de a conexão ser encerrada
+    public void awaitPending() throws InterruptedException {
+        final var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.UPSTREAM_TIMEOUT);
+
+        lock.lock();
+        try {
+            while (pending.get() > 0) {
+                final var remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                drained.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Aceita conexões numa porta e entrega cada requisição recebida ao tratador
+// do serviço, devolvendo a resposta pela mesma conexão
+public abstract class Transport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Transport.class.getSimpleName());
+
+    protected final String name;
+    protected final Integer port;
+    protected final RequestHandler handler;
+
+    protected volatile boolean alive = false;
+
+    protected Transport(final String name, final Integer port, final RequestHandler handler) {
+        this.name = name;
+        this.port = port;
+        this.handler = handler;
+    }
+
+    public static Transport create(final String name, final Integer port, final RequestHandler handler) {
+        switch (Constants.TRANSPORT) {
+            case NIO:
+                return new NioTransport(name, port, handler);
+
+            default:
+                return new BlockingTransport(name, port, handler);
+        }
+    }
+
+    public abstract void start() throws IOException;
+
+    public abstract void stop();
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    protected Response<? extends Serializable> dispatch(final Request<? extends Serializable> request,
+            final ResponseSink sink) {
+        // O tratador pode reaproveitar a requisição, então o identificador é guardado antes
+        final var correlationId = request.getCorrelationId();
+        final ResponseSink partials = partial -> {
+            partial.setCorrelationId(correlationId);
+            sink.send(partial);
+        };
+
+        Response<? extends Serializable> response;
+        try {
+            response = handler.handle(request, partials);
+        } catch (final RuntimeException e) {
+            LOG.error("Erro ao executar operação {}", request.getOperation(), e);
+            response = new Response<>(ResponseStatus.ERROR, e.getMessage());
+        }
+
+        response.setCorrelationId(correlationId);
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + Constants.TRANSPORT + ") na porta " + port;
+    }
+
+}
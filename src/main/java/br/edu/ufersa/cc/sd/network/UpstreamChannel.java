@@ -0,0 +1,326 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.enums.WireFormat;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Mantém algumas conexões abertas com um servidor e envia várias requisições
+// por cada uma delas, pareando as respostas pelo identificador da requisição
+public class UpstreamChannel implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UpstreamChannel.class.getSimpleName());
+
+    private final String host;
+    private final Integer port;
+    private final Connection[] connections;
+
+    // Conexões próprias das respostas em blocos, fechadas junto com o canal
+    private final Set<Socket> streams = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    // Travas explícitas: threads virtuais bloqueadas em synchronized prendem a thread do sistema
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public UpstreamChannel(final String host, final Integer port, final Integer size) {
+        this.host = host;
+        this.port = port;
+        this.connections = new Connection[size];
+    }
+
+    // Requisições recusadas por sobrecarga não chegaram a ser executadas, então
+    // podem ser repetidas com segurança, inclusive escritas
+    public <O extends Serializable> Response<O> call(final Request<? extends Serializable> request) {
+        for (int attempt = 0;; attempt++) {
+            final Response<O> response = await(send(request));
+            if (response.getStatus() != ResponseStatus.OVERLOADED || attempt >= Constants.UPSTREAM_RETRIES) {
+                return response;
+            }
+            backOff(attempt);
+        }
+    }
+
+    // Respostas em blocos usam uma conexão própria, lida pela thread que
+    // chamou: cada bloco é repassado ao sink antes de o próximo ser lido, e um
+    // destinatário lento não atrasa as demais requisições do canal
+    public <O extends Serializable> Response<O> stream(final Request<? extends Serializable> request,
+            final ResponseSink sink) {
+        for (int attempt = 0;; attempt++) {
+            final Response<O> response = streamOnce(request, sink);
+            if (response.getStatus() != ResponseStatus.OVERLOADED || attempt >= Constants.UPSTREAM_RETRIES) {
+                return response;
+            }
+            backOff(attempt);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <O extends Serializable> CompletableFuture<Response<O>> send(final Request<? extends Serializable> request) {
+        final var id = nextId.getAndIncrement();
+        request.setCorrelationId(id);
+
+        final var future = new CompletableFuture<Response<? extends Serializable>>();
+        final var connection = pick(id, future);
+
+        try {
+            connection.write(request);
+        } catch (final IOException e) {
+            connection.fail(e);
+        }
+
+        return (CompletableFuture<Response<O>>) (CompletableFuture<?>) future;
+    }
+
+    public static <O extends Serializable> Response<O> await(final CompletableFuture<Response<O>> future) {
+        try {
+            return future.get(Constants.UPSTREAM_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("Requisição interrompida", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof ConnectionException) {
+                throw (ConnectionException) e.getCause();
+            }
+            throw new ConnectionException(e.getCause());
+        } catch (final TimeoutException e) {
+            future.cancel(false);
+            throw new ConnectionException("Tempo de resposta do servidor esgotado", e);
+        }
+    }
+
+    // Uma recusa só acontece antes do primeiro bloco, então nada foi repassado ao sink
+    private <O extends Serializable> Response<O> streamOnce(final Request<? extends Serializable> request,
+            final ResponseSink sink) {
+        try (final var socket = new Socket(host, port)) {
+            streams.add(socket);
+            if (closed) {
+                throw new ConnectionException("Canal encerrado");
+            }
+
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(Constants.UPSTREAM_TIMEOUT);
+            final var output = new BufferedOutputStream(socket.getOutputStream());
+            final var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final var format = Frames.connect(output, input, Constants.WIRE_FORMAT);
+
+            request.setCorrelationId(nextId.getAndIncrement());
+            Frames.write(output, Frames.encode(request, format));
+
+            while (true) {
+                final Response<O> response = Frames.decode(Frames.read(input), format);
+                if (response.getStatus() != ResponseStatus.CHUNK) {
+                    return response;
+                }
+                sink.send(response);
+            }
+        } catch (final SocketTimeoutException e) {
+            throw new ConnectionException("Tempo de resposta do servidor esgotado", e);
+        } catch (final IOException e) {
+            throw new ConnectionException("Erro ao receber resposta do servidor", e);
+        } finally {
+            streams.removeIf(Socket::isClosed);
+        }
+    }
+
+    // Espera exponencial com sorteio, para que os proxies recusados juntos não voltem juntos
+    private void backOff(final int attempt) {
+        final var limit = Math.max(1L, (long) Constants.UPSTREAM_BACKOFF << Math.min(attempt, 16));
+        LOG.warn("Servidor sobrecarregado, nova tentativa em até {} ms", limit);
+
+        try {
+            Thread.sleep(1 + ThreadLocalRandom.current().nextLong(limit));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("Requisição interrompida", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        streams.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                LOG.debug("Erro ao fechar conexão", e);
+            }
+        });
+
+        lock.lock();
+        try {
+            for (int i = 0; i < connections.length; i++) {
+                if (connections[i] != null) {
+                    connections[i].fail(new IOException("Canal encerrado"));
+                    connections[i] = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection pick(final Long id, final CompletableFuture<Response<? extends Serializable>> future) {
+        final var index = Math.floorMod(nextConnection.getAndIncrement(), connections.length);
+
+        lock.lock();
+        try {
+            var connection = connections[index];
+            if (connection == null || !connection.isUsable()) {
+                if (connection != null) {
+                    connection.retire();
+                }
+                connection = new Connection(index);
+                connections[index] = connection;
+            }
+
+            connection.register(id, future);
+            return connection;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class Connection {
+
+        private final Socket socket;
+        private final OutputStream output;
+        private final DataInputStream input;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final WireFormat format;
+        private final Map<Long, CompletableFuture<Response<? extends Serializable>>> pending = new ConcurrentHashMap<>();
+
+        private volatile boolean open = true;
+
+        // Renovada antes de o servidor encerrar a sessão por ociosidade ou pelo limite de requisições
+        private volatile boolean retired = false;
+        private long requests = 0;
+        private long lastUse = System.currentTimeMillis();
+
+        public Connection(final Integer index) {
+            try {
+                socket = new Socket(host, port);
+                socket.setTcpNoDelay(true);
+                output = new BufferedOutputStream(socket.getOutputStream());
+                input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                format = Frames.connect(output, input, Constants.WIRE_FORMAT);
+            } catch (final IOException e) {
+                throw new ConnectionException("Não foi possível conectar ao servidor", e);
+            }
+
+            final var reader = new Thread(this::readResponses, "upstream-" + port + "-" + index);
+            reader.setDaemon(true);
+            reader.start();
+
+            LOG.info("Conexão persistente aberta com {}:{} ({})", host, port, format);
+        }
+
+        public boolean isUsable() {
+            final var idle = System.currentTimeMillis() - lastUse;
+            return open && !retired && (Constants.SESSION_IDLE_TIMEOUT <= 0 || idle < Constants.SESSION_IDLE_TIMEOUT / 2);
+        }
+
+
+        // Deixa de receber requisições e fecha assim que as pendentes forem respondidas
+        public void retire() {
+            retired = true;
+            if (pending.isEmpty()) {
+                fail(new IOException("Conexão renovada"));
+            }
+        }
+
+        // Chamado sob a trava do canal, antes de cada envio
+        public void register(final Long id, final CompletableFuture<Response<? extends Serializable>> future) {
+            future.whenComplete((response, error) -> pending.remove(id));
+            pending.put(id, future);
+
+            lastUse = System.currentTimeMillis();
+            requests++;
+            if (Constants.SESSION_MAX_REQUESTS > 0 && requests >= Constants.SESSION_MAX_REQUESTS) {
+                retired = true;
+            }
+
+            // A conexão pode ter caído entre a escolha e o registro
+            if (!open) {
+                future.completeExceptionally(new ConnectionException("Conexão com o servidor perdida"));
+            }
+        }
+
+        public void write(final Request<? extends Serializable> request) throws IOException {
+            final var payload = Frames.encode(request, format);
+            writeLock.lock();
+            try {
+                Frames.write(output, payload);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        public void fail(final Throwable cause) {
+            if (open) {
+                open = false;
+                LOG.warn("Conexão persistente com {}:{} encerrada: {}", host, port, cause.getMessage());
+            }
+
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                LOG.debug("Erro ao fechar conexão", e);
+            }
+
+            pending.values().forEach(future -> future
+                    .completeExceptionally(new ConnectionException("Conexão com o servidor perdida", cause)));
+        }
+
+        private void readResponses() {
+            try {
+                while (open) {
+                    final Response<? extends Serializable> response = Frames.decode(Frames.read(input), format);
+                    final var future = pending.remove(response.getCorrelationId());
+
+                    if (future != null) {
+                        future.complete(response);
+                    } else {
+                        LOG.warn("Resposta sem requisição correspondente: {}", response.getCorrelationId());
+                    }
+
+                    if (retired && pending.isEmpty()) {
+                        fail(new IOException("Conexão renovada"));
+                    }
+                }
+            } catch (final IOException | ConnectionException e) {
+                fail(e);
+            }
+        }
+
+    }
+
+}
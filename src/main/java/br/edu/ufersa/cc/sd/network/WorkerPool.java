@@ -0,0 +1,84 @@
+package br.edu.ufersa.cc.sd.network;
+
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.utils.Constants;
+import br.edu.ufersa.cc.sd.utils.Threads;
+
+// Executa as requisições com um número limitado de vagas (em execução mais
+// aguardando). Sem vaga, a tarefa é recusada na hora e o servidor responde
+// OVERLOADED, em vez de acumular threads e memória até cair
+//
+// Requisições que duram enquanto a conexão durar, como as assinaturas de
+// alterações, não ocupam vaga: cada uma ganha a própria thread, com um limite
+// à parte, para não prender os trabalhadores das requisições comuns
+public class WorkerPool {
+
+    private static final Set<Operation> LONG_LIVED = EnumSet.of(Operation.SUBSCRIBE);
+
+    private final ExecutorService executor = Threads.workers();
+    private final Semaphore slots = new Semaphore(Constants.WORKERS + Constants.WORKER_QUEUE);
+    private final Executor detached = Threads.perConnection();
+    private final Semaphore detachedSlots = new Semaphore(Constants.SUBSCRIPTIONS);
+
+    public static boolean isLongLived(final Request<? extends Serializable> request) {
+        return LONG_LIVED.contains(request.getOperation());
+    }
+
+    public boolean trySubmit(final Request<? extends Serializable> request, final Runnable task) {
+        return isLongLived(request) ? tryDetach(task) : trySubmit(task);
+    }
+
+    public boolean tryDetach(final Runnable task) {
+        if (!detachedSlots.tryAcquire()) {
+            return false;
+        }
+
+        try {
+            detached.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    detachedSlots.release();
+                }
+            });
+            return true;
+        } catch (final RuntimeException e) {
+            detachedSlots.release();
+            return false;
+        }
+    }
+
+    public boolean trySubmit(final Runnable task) {
+        if (!slots.tryAcquire()) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    slots.release();
+                }
+            });
+            return true;
+        } catch (final RejectedExecutionException e) {
+            slots.release();
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,128 @@
+package br.edu.ufersa.cc.sd.registry;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Registration;
+
+// Proxies que se registraram e continuam enviando sinais de vida. Um proxy
+// sem sinal por mais que o prazo deixa de ser indicado aos clientes
+public class ProxyRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyRegistry.class.getSimpleName());
+
+    private static class Entry {
+        private final InetSocketAddress key;
+        private final InetSocketAddress address;
+        private volatile int load;
+        private volatile long lastSeen;
+
+        // Clientes enviados a este proxy desde o último sinal, que ainda não
+        // aparecem na carga informada por ele
+        private final AtomicInteger assigned = new AtomicInteger();
+
+        private Entry(final InetSocketAddress key) {
+            this.key = key;
+            this.address = new InetSocketAddress(key.getHostString(), key.getPort());
+        }
+
+        private int estimatedLoad() {
+            return load + assigned.get();
+        }
+    }
+
+    private final long ttl;
+    private final Map<InetSocketAddress, Entry> entries = new ConcurrentHashMap<>();
+
+    public ProxyRegistry(final Integer ttlMillis) {
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public void register(final Registration registration) {
+        final var address = addressOf(registration);
+        final var entry = entries.computeIfAbsent(address, key -> {
+            LOG.info("Proxy registrado: {}", key);
+            return new Entry(key);
+        });
+        refresh(entry, registration);
+    }
+
+    // Retorna falso se o proxy não estiver registrado (ou tiver expirado),
+    // para que ele se registre de novo
+    public boolean heartbeat(final Registration registration) {
+        final var entry = entries.get(addressOf(registration));
+        if (entry == null || isExpired(entry, System.nanoTime())) {
+            return false;
+        }
+        refresh(entry, registration);
+        return true;
+    }
+
+    public void deregister(final Registration registration) {
+        if (entries.remove(addressOf(registration)) != null) {
+            LOG.info("Proxy removido: {}", addressOf(registration));
+        }
+    }
+
+    // Proxies ativos, do menos ao mais ocupado
+    public List<InetSocketAddress> ranked() {
+        return healthy().stream()
+                .map(entry -> entry.address)
+                .collect(Collectors.toList());
+    }
+
+    // O proxy menos ocupado, já contado como tendo recebido mais um cliente
+    public InetSocketAddress leastLoaded() {
+        final var healthy = healthy();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+
+        final var best = healthy.get(0);
+        best.assigned.incrementAndGet();
+        return best.address;
+    }
+
+    private List<Entry> healthy() {
+        final var now = System.nanoTime();
+        final var result = new ArrayList<Entry>(entries.size());
+
+        entries.values().forEach(entry -> {
+            if (isExpired(entry, now)) {
+                if (entries.remove(entry.key, entry)) {
+                    LOG.warn("Proxy sem sinal de vida removido: {}", entry.address);
+                }
+            } else {
+                result.add(entry);
+            }
+        });
+
+        result.sort(Comparator.comparingInt(Entry::estimatedLoad));
+        return result;
+    }
+
+    private void refresh(final Entry entry, final Registration registration) {
+        entry.load = registration.getLoad() != null ? registration.getLoad() : 0;
+        entry.assigned.set(0);
+        entry.lastSeen = System.nanoTime();
+    }
+
+    private boolean isExpired(final Entry entry, final long now) {
+        return now - entry.lastSeen > ttl;
+    }
+
+    private static InetSocketAddress addressOf(final Registration registration) {
+        return InetSocketAddress.createUnresolved(registration.getHost(), registration.getPort());
+    }
+
+}
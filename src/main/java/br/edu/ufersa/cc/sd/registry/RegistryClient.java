@@ -0,0 +1,82 @@
+package br.edu.ufersa.cc.sd.registry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Registration;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.network.UpstreamChannel;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Mantém um proxy registrado no servidor de localização, informando a carga
+// atual a cada sinal de vida. Se a localização reiniciar (ou ainda não
+// estiver no ar), o registro é refeito no sinal seguinte
+public class RegistryClient implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryClient.class.getSimpleName());
+
+    private final String host;
+    private final Integer port;
+    private final IntSupplier load;
+
+    private final UpstreamChannel localization = new UpstreamChannel(Constants.LOCALIZATION_HOST,
+            Constants.LOCALIZATION_PORT, 1);
+    private ScheduledExecutorService timer;
+
+    public RegistryClient(final String host, final Integer port, final IntSupplier load) {
+        this.host = host;
+        this.port = port;
+        this.load = load;
+    }
+
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            final var thread = new Thread(task, "registry-" + port);
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::beat, 0, Constants.HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+
+        // Sai da lista na hora, sem esperar o prazo do último sinal
+        try {
+            localization.call(new Request<>(Operation.DEREGISTER, registration()));
+        } catch (final ConnectionException e) {
+            LOG.debug("Não foi possível cancelar o registro", e);
+        }
+        localization.close();
+    }
+
+    private void beat() {
+        try {
+            final Response<?> response = localization.call(new Request<>(Operation.HEARTBEAT, registration()));
+            if (response.getStatus() == ResponseStatus.NOT_FOUND) {
+                LOG.info("Registrando proxy {}:{} na localização", host, port);
+                localization.call(new Request<>(Operation.REGISTER, registration()));
+            }
+        } catch (final ConnectionException e) {
+            LOG.warn("Servidor de localização indisponível: {}", e.getMessage());
+        }
+    }
+
+    private Registration registration() {
+        return new Registration(host, port, load.getAsInt());
+    }
+
+}
@@ -0,0 +1,133 @@
+package br.edu.ufersa.cc.sd.replication;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
+import br.edu.ufersa.cc.sd.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Registro, no servidor principal, dos códigos alterados por cada escrita
+// confirmada, numerados em sequência. Só os códigos são guardados: a réplica
+// recebe o estado atual dessas ordens, então não importa em que ordem
+// escritas simultâneas chegam aqui depois de confirmadas. Os proxies também
+// acompanham o registro para descartar do cache as ordens alteradas
+public class ChangeLog {
+
+    // Identifica esta execução do principal; sequências de outra execução não valem
+    private final Long epoch = ThreadLocalRandom.current().nextLong();
+    private final Integer capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ArrayDeque<Long> codes = new ArrayDeque<>();
+    private long last = 0;
+
+    public ChangeLog(final Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public void record(final Order order) {
+        lock.lock();
+        try {
+            append(order);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordAll(final Collection<Order> orders) {
+        lock.lock();
+        try {
+            orders.forEach(this::append);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Códigos alterados depois da posição da réplica. Sem códigos, a posição é
+    // de outra execução ou já saiu do registro, e a réplica precisa da base inteira
+    public Window since(final ReplicaPosition position) {
+        lock.lock();
+        try {
+            final var first = last - codes.size();
+            final var after = position.getSequence();
+            if (!epoch.equals(position.getEpoch()) || after == null || after < first || after > last) {
+                return new Window(last, null);
+            }
+
+            final var changed = new LinkedHashSet<Long>();
+            var sequence = first;
+            for (final var code : codes) {
+                if (++sequence > after) {
+                    changed.add(code);
+                }
+            }
+            return new Window(last, changed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Posição atual, a partir da qual um novo assinante passa a receber alterações
+    public ReplicaPosition position() {
+        lock.lock();
+        try {
+            return new ReplicaPosition(epoch, last);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Como since, mas espera até haver alguma alteração depois da posição ou o prazo acabar
+    public Window await(final ReplicaPosition position, final long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            var remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (remaining > 0 && epoch.equals(position.getEpoch())
+                    && Long.valueOf(last).equals(position.getSequence())) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            return since(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(final Order order) {
+        if (order.getCode() == null) {
+            return;
+        }
+
+        codes.addLast(order.getCode());
+        last++;
+        if (codes.size() > capacity) {
+            codes.removeFirst();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Window {
+
+        private final Long sequence;
+
+        // Nulo quando a réplica precisa da base inteira
+        private final Set<Long> codes;
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package br.edu.ufersa.cc.sd.replication;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Latências das leituras mais recentes, usadas para decidir quando uma
+// leitura já demorou mais que o normal. O percentil é recalculado a cada
+// poucas amostras, não a cada leitura
+public class LatencyWindow {
+
+    private static final Integer SIZE = 256;
+    private static final Integer MIN_SAMPLES = 32;
+    private static final Integer REFRESH = 16;
+
+    private final Integer percentile;
+    private final long[] samples = new long[SIZE];
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int count = 0;
+    private int next = 0;
+    private int sinceRefresh = 0;
+    private volatile long threshold = Long.MAX_VALUE;
+
+    public LatencyWindow(final Integer percentile) {
+        this.percentile = percentile;
+    }
+
+    public void record(final long nanos) {
+        lock.lock();
+        try {
+            samples[next] = nanos;
+            next = (next + 1) % SIZE;
+            count = Math.min(count + 1, SIZE);
+
+            if (++sinceRefresh >= REFRESH && count >= MIN_SAMPLES) {
+                sinceRefresh = 0;
+                final var sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                threshold = sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Long.MAX_VALUE enquanto não houver amostras suficientes
+    public long getThreshold() {
+        return threshold;
+    }
+
+}
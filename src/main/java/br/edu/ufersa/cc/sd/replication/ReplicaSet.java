@@ -0,0 +1,200 @@
+package br.edu.ufersa.cc.sd.replication;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.UpstreamChannel;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Leituras de uma parte: vão às réplicas em dia, em rodízio, e ao servidor
+// principal quando nenhuma está. Uma leitura que passa do percentil
+// configurado das latências recentes é repetida no próximo servidor da
+// lista, e vale a primeira resposta
+public class ReplicaSet implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaSet.class.getSimpleName());
+
+    private final UpstreamChannel primary;
+    private final List<Replica> replicas;
+    private final LatencyWindow latencies = new LatencyWindow(Constants.HEDGE_PERCENTILE);
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService timer;
+
+    // O canal do principal pertence a quem criou o conjunto
+    public ReplicaSet(final Integer shard, final UpstreamChannel primary, final List<InetSocketAddress> addresses,
+            final Integer connections) {
+        this.primary = primary;
+        this.replicas = addresses.stream()
+                .map(address -> new Replica(address, connections))
+                .collect(Collectors.toList());
+
+        if (replicas.isEmpty()) {
+            timer = null;
+            return;
+        }
+
+        LOG.info("Leituras da parte {} nas réplicas {}", shard, addresses);
+        final var threads = new AtomicInteger();
+        timer = Executors.newScheduledThreadPool(2, task -> {
+            final var thread = new Thread(task, "replicas-" + shard + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::check, 0, Constants.REPLICA_CHECK, TimeUnit.MILLISECONDS);
+    }
+
+    public <O extends Serializable> CompletableFuture<Response<O>> read(final Request<? extends Serializable> request) {
+        final var targets = targets();
+        if (targets.size() == 1) {
+            return send(targets.get(0), request);
+        }
+
+        final var result = new CompletableFuture<Response<O>>();
+        final var started = System.nanoTime();
+        final var outstanding = new AtomicInteger(1);
+        final var hedged = new AtomicBoolean();
+
+        // Também usada quando a primeira tentativa falha antes do prazo
+        final Runnable hedge = () -> {
+            if (!result.isDone() && hedged.compareAndSet(false, true)) {
+                LOG.debug("Leitura repetida em outro servidor");
+                outstanding.incrementAndGet();
+                forward(ReplicaSet.<O>send(targets.get(1), request), result, started, outstanding, null);
+            }
+        };
+        forward(ReplicaSet.<O>send(targets.get(0), request), result, started, outstanding, hedge);
+
+        final var threshold = latencies.getThreshold();
+        if (Constants.HEDGE_PERCENTILE > 0 && threshold != Long.MAX_VALUE) {
+            timer.schedule(hedge, threshold, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.channel.close());
+    }
+
+    // Vale a primeira resposta aceitável; falhas (ou recusas por sobrecarga)
+    // antecipam a repetição, e só a última delas chega a quem pediu
+    private <O extends Serializable> void forward(final CompletableFuture<Response<O>> attempt,
+            final CompletableFuture<Response<O>> result, final long started, final AtomicInteger outstanding,
+            final Runnable hedge) {
+        attempt.whenComplete((response, error) -> {
+            if (error == null && response.getStatus() != ResponseStatus.OVERLOADED) {
+                latencies.record(System.nanoTime() - started);
+                result.complete(response);
+                return;
+            }
+
+            if (hedge != null) {
+                hedge.run();
+            }
+            if (outstanding.decrementAndGet() == 0) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            }
+        });
+    }
+
+    // Réplicas em dia a partir da próxima da vez, seguidas do principal
+    private List<UpstreamChannel> targets() {
+        final var fresh = replicas.stream()
+                .filter(Replica::isFresh)
+                .map(replica -> replica.channel)
+                .collect(Collectors.toList());
+
+        final var targets = new ArrayList<UpstreamChannel>(fresh.size() + 1);
+        if (!fresh.isEmpty()) {
+            final var first = Math.floorMod(next.getAndIncrement(), fresh.size());
+            for (int i = 0; i < fresh.size(); i++) {
+                targets.add(fresh.get((first + i) % fresh.size()));
+            }
+        }
+        targets.add(primary);
+        return targets;
+    }
+
+    private void check() {
+        replicas.forEach(replica -> {
+            final var asked = System.nanoTime();
+            ReplicaSet.<Long>send(replica.channel, new Request<>(Operation.REPLICA_STATUS, Order.class))
+                    .whenComplete((response, error) -> {
+                        if (error == null && response.getStatus() == ResponseStatus.OK) {
+                            replica.update(response.getItem(), asked);
+                        } else if (replica.isFresh()) {
+                            LOG.warn("Réplica {} indisponível", replica.address);
+                        }
+                    });
+        });
+    }
+
+    // Falhas ao conectar chegam pelo resultado, como as demais
+    private static <O extends Serializable> CompletableFuture<Response<O>> send(final UpstreamChannel channel,
+            final Request<? extends Serializable> request) {
+        try {
+            return channel.send(request);
+        } catch (final ConnectionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static class Replica {
+
+        private final InetSocketAddress address;
+        private final UpstreamChannel channel;
+
+        // Defasagem informada pela réplica e instante (System.nanoTime) da pergunta
+        private volatile long lag = Long.MAX_VALUE;
+        private volatile long askedAt;
+
+        private Replica(final InetSocketAddress address, final Integer connections) {
+            this.address = address;
+            this.channel = new UpstreamChannel(address.getHostString(), address.getPort(), connections);
+        }
+
+        private void update(final Long lag, final long askedAt) {
+            this.lag = lag;
+            this.askedAt = askedAt;
+        }
+
+        // A defasagem cresce enquanto não há resposta nova, então uma réplica
+        // que parou de responder sai da lista assim que passa do limite
+        private boolean isFresh() {
+            final var current = lag;
+            if (current == Long.MAX_VALUE) {
+                return false;
+            }
+            final var age = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - askedAt);
+            return current + age <= Constants.REPLICA_STALENESS;
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package br.edu.ufersa.cc.sd.replication;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import br.edu.ufersa.cc.sd.sharding.Shards;
+import br.edu.ufersa.cc.sd.utils.Constants;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Um servidor de dados é réplica quando recebe orders.replica.of; do
+// contrário é o principal da sua parte e registra as próprias escritas
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Replication {
+
+    public static final ChangeLog CHANGES = new ChangeLog(Constants.REPLICATION_LOG);
+
+    public static boolean isReplica() {
+        return !Constants.REPLICA_OF.isEmpty();
+    }
+
+    public static InetSocketAddress primary() {
+        return Shards.parse(Constants.REPLICA_OF);
+    }
+
+    // Réplicas da parte, na ordem de orders.replicas
+    public static List<InetSocketAddress> replicasOf(final int shard) {
+        if (shard >= Constants.REPLICAS.size()) {
+            return List.of();
+        }
+
+        return Constants.REPLICAS.get(shard).stream()
+                .map(Shards::parse)
+                .collect(Collectors.toList());
+    }
+
+}
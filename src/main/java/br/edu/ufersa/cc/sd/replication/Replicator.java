@@ -0,0 +1,106 @@
+package br.edu.ufersa.cc.sd.replication;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.ChangeSet;
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.network.UpstreamChannel;
+import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Mantém uma réplica em dia com o servidor principal, buscando a cada
+// intervalo as alterações posteriores à última aplicada. A defasagem
+// informada ao proxy é o tempo desde o início da última busca bem-sucedida
+public class Replicator implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Replicator.class.getSimpleName());
+
+    private final UpstreamChannel primary;
+    private ScheduledExecutorService timer;
+
+    // Usados só pela thread do timer
+    private Long epoch;
+    private Long sequence;
+    private Long after;
+
+    // Instante (System.nanoTime) da última busca aplicada; zero antes da primeira
+    private volatile long syncedAt = 0;
+
+    public Replicator() {
+        final var address = Replication.primary();
+        primary = new UpstreamChannel(address.getHostString(), address.getPort(), 1);
+    }
+
+    public void start() {
+        LOG.info("Réplica de {}, atualizada a cada {} ms", Constants.REPLICA_OF, Constants.REPLICATION_INTERVAL);
+
+        timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            final var thread = new Thread(task, "replicator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::pull, 0, Constants.REPLICATION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    // Milissegundos de atraso em relação ao principal; Long.MAX_VALUE se a réplica nunca foi atualizada
+    public Long lag() {
+        final var synced = syncedAt;
+        return synced == 0 ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - synced);
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        primary.close();
+    }
+
+    // A cópia da base vem em partes, buscadas em seguida; uma falha no meio
+    // é retomada na próxima busca a partir da última parte aplicada
+    private void pull() {
+        final var started = System.nanoTime();
+
+        try {
+            do {
+                final Response<ChangeSet> response = primary
+                        .call(new Request<>(Operation.REPLICATE, new ReplicaPosition(epoch, sequence, after)));
+                if (response.getStatus() != ResponseStatus.OK) {
+                    LOG.warn("Servidor principal recusou a replicação: {}", response.getMessage());
+                    return;
+                }
+
+                final var changes = response.getItem();
+                if (Boolean.TRUE.equals(changes.getSnapshot())) {
+                    // Até a cópia terminar, a réplica não tem a base inteira
+                    LOG.info("Copiando a base inteira do servidor principal...");
+                    syncedAt = 0;
+                }
+                OrderRepository.apply(changes);
+
+                epoch = changes.getEpoch();
+                sequence = changes.getSequence();
+                after = changes.getNext();
+            } while (after != null);
+
+            syncedAt = started;
+        } catch (final ConnectionException e) {
+            LOG.warn("Servidor principal indisponível: {}", e.getMessage());
+        } catch (final SQLException e) {
+            LOG.error("Erro ao aplicar alterações do servidor principal", e);
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package br.edu.ufersa.cc.sd.repositories;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Conjunto limitado de conexões com o banco, abertas conforme a demanda. Cada
+// conexão é usada por uma thread de cada vez e guarda os próprios comandos
+// preparados, reaproveitados nas chamadas seguintes com o mesmo SQL
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class.getSimpleName());
+
+    private static final Integer VALIDATION_TIMEOUT = 1;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Integer size;
+    private final Integer statements;
+    private final Integer timeout;
+
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger opened = new AtomicInteger();
+
+    public ConnectionPool(final String url, final String user, final String password, final Integer size,
+            final Integer statements, final Integer timeout) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.size = size;
+        this.statements = statements;
+        this.timeout = timeout;
+    }
+
+    public <T> T execute(final SqlFunction<T> action) throws SQLException {
+        final var connection = borrow();
+
+        var broken = false;
+        try {
+            return action.apply(connection);
+        } catch (final SQLException e) {
+            broken = !connection.isValid();
+            throw e;
+        } finally {
+            release(connection, broken);
+        }
+    }
+
+    // Executa a ação numa única transação, desfeita se algum comando falhar
+    public <T> T transaction(final SqlFunction<T> action) throws SQLException {
+        return execute(connection -> {
+            final var jdbc = connection.getConnection();
+            jdbc.setAutoCommit(false);
+
+            try {
+                final var result = action.apply(connection);
+                jdbc.commit();
+                return result;
+            } catch (final SQLException | RuntimeException e) {
+                jdbc.rollback();
+                connection.clearBatches();
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        });
+    }
+
+    public Integer getOpened() {
+        return opened.get();
+    }
+
+    // Fecha as conexões livres; as que estão em uso voltam normalmente e novas
+    // conexões são abertas se o conjunto voltar a ser usado
+    @Override
+    public void close() {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    private PooledConnection borrow() throws SQLException {
+        final var available = idle.poll();
+        if (available != null) {
+            return available;
+        }
+
+        // Abre uma nova conexão enquanto houver vaga
+        if (opened.incrementAndGet() <= size) {
+            try {
+                LOG.info("Abrindo conexão {}/{} com o Banco de Dados", opened.get(), size);
+                return new PooledConnection(DriverManager.getConnection(url, user, password), statements);
+            } catch (final SQLException e) {
+                opened.decrementAndGet();
+                throw new SQLException("Erro ao abrir conexão com Banco de Dados", e);
+            }
+        }
+        opened.decrementAndGet();
+
+        try {
+            final var connection = idle.poll(timeout, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new SQLException("Tempo esgotado aguardando uma conexão com o Banco de Dados");
+            }
+            return connection;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando uma conexão com o Banco de Dados", e);
+        }
+    }
+
+    private void release(final PooledConnection connection, final boolean broken) {
+        if (broken) {
+            discard(connection);
+        } else {
+            idle.offer(connection);
+        }
+    }
+
+    private void discard(final PooledConnection connection) {
+        opened.decrementAndGet();
+        try {
+            connection.close();
+        } catch (final SQLException e) {
+            LOG.debug("Erro ao fechar conexão", e);
+        }
+    }
+
+    public static class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> prepared;
+
+        private PooledConnection(final Connection connection, final Integer statements) {
+            this.connection = connection;
+
+            // Os comandos menos usados recentemente são fechados ao passar do limite
+            this.prepared = new LinkedHashMap<>(statements * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statements) {
+                        return false;
+                    }
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        // O comando retornado continua pertencendo à conexão e não deve ser
+        // fechado; volta sem parâmetros nem lote deixados pelo uso anterior
+        public PreparedStatement prepare(final String sql) throws SQLException {
+            return prepare(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        public PreparedStatement prepare(final String sql, final int autoGeneratedKeys) throws SQLException {
+            final var key = autoGeneratedKeys == Statement.NO_GENERATED_KEYS ? sql : autoGeneratedKeys + ":" + sql;
+
+            var statement = prepared.get(key);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql, autoGeneratedKeys);
+                prepared.put(key, statement);
+            } else {
+                statement.clearParameters();
+                statement.clearBatch();
+            }
+            return statement;
+        }
+
+        // Um lote interrompido por erro não pode ir junto com o próximo uso do comando
+        private void clearBatches() {
+            prepared.values().forEach(statement -> {
+                try {
+                    statement.clearBatch();
+                } catch (final SQLException e) {
+                    LOG.debug("Erro ao limpar lote do comando preparado", e);
+                }
+            });
+        }
+
+        private boolean isValid() {
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT);
+            } catch (final SQLException e) {
+                return false;
+            }
+        }
+
+        private void close() throws SQLException {
+            prepared.values().forEach(PooledConnection::closeQuietly);
+            prepared.clear();
+            connection.close();
+        }
+
+        private static void closeQuietly(final PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (final SQLException e) {
+                LOG.debug("Erro ao fechar comando preparado", e);
+            }
+        }
+
+    }
+
+    @FunctionalInterface
+    public interface SqlFunction<T> {
+        T apply(PooledConnection connection) throws SQLException;
+    }
+
+}
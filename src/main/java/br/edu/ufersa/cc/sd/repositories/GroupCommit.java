@@ -0,0 +1,206 @@
+package br.edu.ufersa.cc.sd.repositories;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.ConnectionPool.PooledConnection;
+
+// Reúne as escritas que chegam de várias threads e grava cada grupo numa só
+// transação: a primeira escrita espera até a janela terminar (ou o grupo
+// encher) e todas são confirmadas juntas. Cada escrita tem seu próprio ponto
+// de salvamento, então a falha de uma não desfaz as demais, e quem a enviou
+// só recebe a resposta depois da confirmação
+public class GroupCommit implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GroupCommit.class.getSimpleName());
+
+    private final long window;
+    private final Integer maxSize;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public GroupCommit(final Integer windowMillis, final Integer maxSize) {
+        this.window = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxSize = maxSize;
+
+        LOG.info("Escritas agrupadas a cada {} ms ou {} ordens", windowMillis, maxSize);
+        committer = new Thread(this::run, "group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public void create(final Order order) {
+        submit(new Pending(Kind.CREATE, order));
+    }
+
+    public void update(final Order order) {
+        submit(new Pending(Kind.UPDATE, order));
+    }
+
+    public void delete(final Order order) {
+        submit(new Pending(Kind.DELETE, order));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        committer.interrupt();
+    }
+
+    private void submit(final Pending pending) {
+        if (!running) {
+            throw new OperationException("Gravação de escritas encerrada");
+        }
+        queue.add(pending);
+
+        try {
+            pending.result.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        final var group = new ArrayList<Pending>(maxSize);
+
+        while (running) {
+            try {
+                group.add(queue.take());
+
+                final var deadline = System.nanoTime() + window;
+                while (group.size() < maxSize) {
+                    final var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                commit(group);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+
+        // Escritas que ficaram na fila não serão gravadas
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new OperationException("Gravação de escritas encerrada"));
+        }
+    }
+
+    private void commit(final List<Pending> group) {
+        LOG.debug("Gravando grupo de {} escritas", group.size());
+
+        try {
+            OrderRepository.transaction(connection -> {
+                final var jdbc = connection.getConnection();
+
+                for (final var pending : group) {
+                    final var savepoint = jdbc.setSavepoint();
+                    try {
+                        pending.wasDone = pending.kind.apply(connection, pending.order);
+                        jdbc.releaseSavepoint(savepoint);
+                    } catch (final SQLException e) {
+                        jdbc.rollback(savepoint);
+                        pending.error = e;
+                    }
+                }
+                return null;
+            });
+        } catch (final SQLException | RuntimeException e) {
+            // Nada do grupo foi confirmado
+            group.forEach(pending -> pending.result
+                    .completeExceptionally(new OperationException(pending.kind.failure, e)));
+            return;
+        }
+
+        // As contagens só mudam depois da confirmação, como nas escritas isoladas
+        final var counter = OrderRepository.counter();
+        for (final var pending : group) {
+            if (pending.error != null) {
+                pending.result.completeExceptionally(new OperationException(pending.kind.failure, pending.error));
+                continue;
+            }
+
+            switch (pending.kind) {
+                case CREATE:
+                    counter.added(false);
+                    break;
+                case UPDATE:
+                    counter.changed(pending.wasDone, pending.order.getDoneAt() != null);
+                    break;
+                case DELETE:
+                    counter.removed(pending.wasDone);
+                    break;
+            }
+            pending.result.complete(null);
+        }
+    }
+
+    private enum Kind {
+        CREATE("Erro ao salvar ordem") {
+            @Override
+            boolean apply(final PooledConnection connection, final Order order) throws SQLException {
+                OrderRepository.insert(connection, order);
+                return false;
+            }
+        },
+        UPDATE("Erro ao atualizar ordem") {
+            @Override
+            boolean apply(final PooledConnection connection, final Order order) throws SQLException {
+                return OrderRepository.updateRow(connection, order);
+            }
+        },
+        DELETE("Erro ao excluir ordem") {
+            @Override
+            boolean apply(final PooledConnection connection, final Order order) throws SQLException {
+                return OrderRepository.deleteRow(connection, order);
+            }
+        };
+
+        private final String failure;
+
+        Kind(final String failure) {
+            this.failure = failure;
+        }
+
+        // Retorna se a ordem estava concluída antes da escrita
+        abstract boolean apply(PooledConnection connection, Order order) throws SQLException;
+    }
+
+    private static class Pending {
+        private final Kind kind;
+        private final Order order;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        // Preenchidos pela thread de gravação antes de completar o resultado
+        private boolean wasDone;
+        private SQLException error;
+
+        private Pending(final Kind kind, final Order order) {
+            this.kind = kind;
+            this.order = order;
+        }
+    }
+
+}
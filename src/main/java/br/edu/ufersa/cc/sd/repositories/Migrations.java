@@ -0,0 +1,107 @@
+package br.edu.ufersa.cc.sd.repositories;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+// Aplica, em ordem, os scripts de db/migration ainda não registrados na
+// tabela schema_version. Scripts já aplicados nunca devem ser alterados:
+// mudanças no esquema entram como uma nova versão no fim da lista
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Migrations {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Migrations.class.getSimpleName());
+
+    private static final String LOCATION = "/db/migration/";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "V1__create_orders.sql"),
+            new Migration(2, "V2__orders_indexes.sql"),
+            new Migration(3, "V3__orders_created_at_millis.sql"));
+
+    public static void migrate() throws SQLException {
+        OrderRepository.execute(connection -> {
+            try (final var statement = connection.getConnection().createStatement()) {
+                statement.executeUpdate("create table if not exists schema_version ("
+                        + "version INT PRIMARY KEY, script VARCHAR(255), applied_at TIMESTAMP)");
+            }
+            return null;
+        });
+
+        final var current = currentVersion();
+        for (final var migration : MIGRATIONS) {
+            if (migration.version > current) {
+                apply(migration);
+            }
+        }
+    }
+
+    private static int currentVersion() throws SQLException {
+        return OrderRepository.execute(connection -> {
+            try (final var resultSet = connection.prepare("select coalesce(max(version), 0) from schema_version")
+                    .executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        });
+    }
+
+    private static void apply(final Migration migration) throws SQLException {
+        LOG.info("Aplicando migração {}", migration.script);
+        final var script = read(migration.script);
+
+        try {
+            OrderRepository.transaction(connection -> {
+                try (final var statement = connection.getConnection().createStatement()) {
+                    for (final var sql : script.split(";")) {
+                        if (!withoutComments(sql).isBlank()) {
+                            statement.executeUpdate(sql);
+                        }
+                    }
+                }
+
+                final var register = connection
+                        .prepare("insert into schema_version (version, script, applied_at) values (?, ?, ?)");
+                register.setInt(1, migration.version);
+                register.setString(2, migration.script);
+                register.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                register.executeUpdate();
+                return null;
+            });
+        } catch (final SQLException e) {
+            throw new SQLException("Erro ao aplicar migração " + migration.script, e);
+        }
+    }
+
+    private static String read(final String script) throws SQLException {
+        try (final var input = Migrations.class.getResourceAsStream(LOCATION + script)) {
+            if (input == null) {
+                throw new SQLException("Migração não encontrada: " + script);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new SQLException("Erro ao ler migração " + script, e);
+        }
+    }
+
+    private static String withoutComments(final String sql) {
+        return sql.replaceAll("(?m)^\\s*--.*$", "");
+    }
+
+    @AllArgsConstructor
+    private static class Migration {
+        private final int version;
+        private final String script;
+    }
+
+}
@@ -0,0 +1,72 @@
+package br.edu.ufersa.cc.sd.repositories;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
+
+// Quantidade de ordens mantida em memória a cada escrita confirmada no banco,
+// para que a contagem não precise percorrer a tabela. Total e concluídas
+// mudam juntos, então uma leitura nunca vê só metade de uma alteração
+public class OrderCounter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long total;
+    private long done;
+
+    public OrderCounts get() {
+        lock.lock();
+        try {
+            return new OrderCounts(total, done, total - done);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Long getTotal() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Substitui os valores pelos contados no banco, devolvendo os anteriores
+    public OrderCounts reset(final long total, final long done) {
+        lock.lock();
+        try {
+            final var previous = new OrderCounts(this.total, this.done, this.total - this.done);
+            this.total = total;
+            this.done = done;
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void added(final boolean isDone) {
+        adjust(1, isDone ? 1 : 0);
+    }
+
+    public void removed(final boolean wasDone) {
+        adjust(-1, wasDone ? -1 : 0);
+    }
+
+    public void changed(final boolean wasDone, final boolean isDone) {
+        if (wasDone != isDone) {
+            adjust(0, isDone ? 1 : -1);
+        }
+    }
+
+    public void adjust(final long totalDelta, final long doneDelta) {
+        lock.lock();
+        try {
+            total += totalDelta;
+            done += doneDelta;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
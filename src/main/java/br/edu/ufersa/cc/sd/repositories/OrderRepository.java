@@ -1,164 +1,647 @@
 package br.edu.ufersa.cc.sd.repositories;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.ChangeSet;
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
 import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
 import br.edu.ufersa.cc.sd.exceptions.OperationException;
 import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.ConnectionPool.PooledConnection;
+import br.edu.ufersa.cc.sd.repositories.ConnectionPool.SqlFunction;
+import br.edu.ufersa.cc.sd.sharding.Shards;
+import br.edu.ufersa.cc.sd.utils.Constants;
 import lombok.AllArgsConstructor;
 
 @AllArgsConstructor
 public class OrderRepository {
 
-    private static final String URL = "jdbc:h2:mem:db1;DB_CLOSE_DELAY=-1";
+    private static final Logger LOG = LoggerFactory.getLogger(OrderRepository.class.getSimpleName());
+
+    private static final String URL = "jdbc:h2:mem:db1;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1";
     private static final String USER = "sa";
     private static final String PASSWORD = "";
     private static final String TABLE = "orders";
 
-    // Configurar acesso ao Banco de Dados
-    private static Connection connection = null;
+    // Conexões com o Banco de Dados compartilhadas por todas as instâncias
+    private static final ConnectionPool POOL = new ConnectionPool(URL, USER, PASSWORD, Constants.JDBC_POOL_SIZE,
+            Constants.JDBC_STATEMENTS, Constants.JDBC_POOL_TIMEOUT);
+
+    // Fechar as conexões abertas
+    public static void closeConnection() {
+        POOL.close();
+    }
+
+    // Quantidades mantidas a cada escrita, compartilhadas como o próprio banco
+    private static final OrderCounter COUNTER = new OrderCounter();
+
+    // Último código usado por esta parte, quando os códigos não vêm do banco
+    private static final AtomicLong LAST_CODE = new AtomicLong();
 
-    // Abrir uma conexão única, e retornar a atual se já existir
-    public static Connection getConnection() throws SQLException {
-        if (connection == null) {
-            try {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (final SQLException e) {
-                throw new SQLException("Erro ao abrir conexão com Banco de Dados", e);
+    static <T> T execute(final SqlFunction<T> action) throws SQLException {
+        return POOL.execute(action);
+    }
+
+    static <T> T transaction(final SqlFunction<T> action) throws SQLException {
+        return POOL.transaction(action);
+    }
+
+    public List<Order> listAll() {
+        final var sql = "select code, name, description, created_at, done_at from " + TABLE
+                + " order by created_at desc, code desc";
+
+        try {
+            return execute(connection -> {
+                try (final var resultSet = connection.prepare(sql).executeQuery()) {
+                    final var result = new ArrayList<Order>();
+                    while (resultSet.next()) {
+                        result.add(toOrder(resultSet));
+                    }
+
+                    return result;
+                }
+            });
+        } catch (final SQLException e) {
+            throw new OperationException("Erro ao listar ordens", e);
+        }
+    }
+
+    // Percorre a tabela entregando as ordens em blocos, sem montar a lista
+    // completa. Cada bloco é lido por chave, como uma página de listAfter, e a
+    // conexão volta ao pool antes de o bloco ser entregue: um destinatário
+    // lento segura no máximo um bloco em memória, nunca uma conexão
+    public Long streamAll(final Integer chunkSize, final Consumer<ArrayList<Order>> consumer) {
+        var total = 0L;
+        Order last = null;
+
+        while (true) {
+            final var chunk = page(last, chunkSize);
+            if (!chunk.isEmpty()) {
+                consumer.accept(chunk);
+                total += chunk.size();
             }
+            if (chunk.size() < chunkSize) {
+                return total;
+            }
+            last = chunk.get(chunk.size() - 1);
         }
-        return connection;
     }
 
-    // Fechar a conexão, caso ela exista
-    public static void closeConnection() throws SQLException {
-        if (connection != null) {
-            connection.close();
-            connection = null;
+    // Paginação por chave: a próxima página começa depois da última ordem
+    // entregue, sem percorrer as anteriores como faria um OFFSET. O limite
+    // "created_at <= ?" vem à frente para que o banco posicione a leitura no
+    // índice (created_at desc, code desc) em vez de percorrê-lo desde o início
+    public List<Order> listAfter(final Order last, final Integer limit) {
+        return page(last, limit);
+    }
+
+    private ArrayList<Order> page(final Order last, final Integer limit) {
+        final var first = "select code, name, description, created_at, done_at from " + TABLE
+                + " order by created_at desc, code desc limit ?";
+        final var next = "select code, name, description, created_at, done_at from " + TABLE
+                + " where created_at <= ? and (created_at < ? or code < ?)"
+                + " order by created_at desc, code desc limit ?";
+
+        try {
+            return execute(connection -> {
+                final PreparedStatement statement;
+                if (last == null) {
+                    statement = connection.prepare(first);
+                    statement.setInt(1, limit);
+                } else {
+                    final var createdAt = Timestamp.valueOf(last.getCreatedAt());
+                    statement = connection.prepare(next);
+                    statement.setTimestamp(1, createdAt);
+                    statement.setTimestamp(2, createdAt);
+                    statement.setLong(3, last.getCode());
+                    statement.setInt(4, limit);
+                }
+
+                try (final var resultSet = statement.executeQuery()) {
+                    final var result = new ArrayList<Order>(limit);
+                    while (resultSet.next()) {
+                        result.add(toOrder(resultSet));
+                    }
+
+                    return result;
+                }
+            });
+        } catch (final SQLException e) {
+            throw new OperationException("Erro ao listar ordens", e);
         }
     }
 
-    public List<Order> listAll() {
-        try (final var statement = getConnection().createStatement()) {
-            final var resultSet = statement
-                    .executeQuery(
-                            "select code, name, description, created_at, done_at from orders order by created_at desc, code desc");
-
-            final var result = new ArrayList<Order>();
-            while (resultSet.next()) {
-                final var createdAt = resultSet.getTimestamp("created_at");
-                final var doneAt = resultSet.getTimestamp("done_at");
-
-                final var order = new Order()
-                        .setCode(resultSet.getLong("code"))
-                        .setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null)
-                        .setDescription(resultSet.getString("description"))
-                        .setDoneAt(doneAt != null ? doneAt.toLocalDateTime() : null)
-                        .setName(resultSet.getString("name"));
-
-                result.add(order);
-            }
+    // Ordens em ordem de código, depois do código informado (ou desde o
+    // início, se nulo); usada para copiar a base para as réplicas em partes
+    public List<Order> listByCodeAfter(final Long after, final Integer limit) {
+        final var sql = "select code, name, description, created_at, done_at from " + TABLE
+                + " where code > ? order by code limit ?";
+
+        try {
+            return execute(connection -> {
+                final var statement = connection.prepare(sql);
+                statement.setLong(1, after != null ? after : Long.MIN_VALUE);
+                statement.setInt(2, limit);
 
-            return result;
+                try (final var resultSet = statement.executeQuery()) {
+                    final var result = new ArrayList<Order>(limit);
+                    while (resultSet.next()) {
+                        result.add(toOrder(resultSet));
+                    }
+
+                    return result;
+                }
+            });
         } catch (final SQLException e) {
             throw new OperationException("Erro ao listar ordens", e);
         }
     }
 
     public Order findByCode(final Long code) throws NotFoundException {
-        final var sql = "select code, name, description, created_at, done_at from orders where code = ?";
-        try (final var statement = getConnection().prepareStatement(sql)) {
-            statement.setLong(1, code);
-            final var resultSet = statement.executeQuery();
-
-            if (resultSet.first()) {
-                final var createdAt = resultSet.getTimestamp("created_at");
-                final var doneAt = resultSet.getTimestamp("done_at");
-
-                return new Order()
-                        .setCode(resultSet.getLong("code"))
-                        .setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null)
-                        .setDescription(resultSet.getString("description"))
-                        .setDoneAt(doneAt != null ? doneAt.toLocalDateTime() : null)
-                        .setName(resultSet.getString("name"));
-            } else {
-                throw new NotFoundException();
-            }
+        final var sql = "select code, name, description, created_at, done_at from " + TABLE + " where code = ?";
+
+        try {
+            return execute(connection -> {
+                final var statement = connection.prepare(sql);
+                statement.setLong(1, code);
+
+                try (final var resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return toOrder(resultSet);
+                    } else {
+                        throw new NotFoundException();
+                    }
+                }
+            });
         } catch (final SQLException e) {
             throw new OperationException("Erro ao consultar ordem", e);
         }
     }
 
-    public void create(final Order order) {
-        final var sql = "insert into " + TABLE + " (name, description, created_at) values (?, ?, ?)";
+    // Ordens inexistentes simplesmente não aparecem no resultado
+    public List<Order> findAllByCode(final List<Long> codes) {
+        final var prefix = "select code, name, description, created_at, done_at from " + TABLE + " where code in ";
 
-        try (final var statement = getConnection().prepareStatement(sql)) {
-            statement.setString(1, order.getName());
-            statement.setString(2, order.getDescription());
-            statement.setTimestamp(3, new Timestamp(
-                    ZonedDateTime.of(order.getCreatedAt(), ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        try {
+            return execute(connection -> {
+                final var result = new ArrayList<Order>(codes.size());
 
-            if (statement.executeUpdate() == 0) {
-                throw new SQLException("Não foi possível cadastrar essa ordem");
-            }
+                for (int start = 0; start < codes.size(); start += Constants.JDBC_BATCH_SIZE) {
+                    final var group = codes.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, codes.size()));
+                    try (final var resultSet = prepareIn(connection, prefix, "", group).executeQuery()) {
+                        while (resultSet.next()) {
+                            result.add(toOrder(resultSet));
+                        }
+                    }
+                }
+                return result;
+            });
+        } catch (final SQLException e) {
+            throw new OperationException("Erro ao consultar ordens", e);
+        }
+    }
+
+    public void create(final Order order) {
+        try {
+            execute(connection -> {
+                insert(connection, order);
+                return null;
+            });
         } catch (final SQLException e) {
             throw new OperationException("Erro ao salvar ordem", e);
         }
+
+        // O cadastro não grava a data de conclusão
+        COUNTER.added(false);
     }
 
     public void update(final Order order) {
-        final var sql = "update " + TABLE + " set name = ?, description = ?, done_at = ? where code = ?";
+        try {
+            // A linha fica travada entre a leitura da situação anterior e a
+            // edição, para que edições simultâneas não contem a mesma mudança
+            final var wasDone = transaction(connection -> updateRow(connection, order));
 
-        try (final var statement = getConnection().prepareStatement(sql)) {
-            statement.setString(1, order.getName());
-            statement.setString(2, order.getDescription());
+            COUNTER.changed(wasDone, order.getDoneAt() != null);
+        } catch (final SQLException e) {
+            throw new OperationException("Erro ao atualizar ordem", e);
+        }
+    }
+
+    public void delete(final Order order) {
+        try {
+            final var wasDone = transaction(connection -> deleteRow(connection, order));
 
-            if (order.getDoneAt() != null) {
-                statement.setTimestamp(3, new Timestamp(
-                        ZonedDateTime.of(order.getDoneAt(), ZoneId.systemDefault()).toInstant().toEpochMilli()));
-            } else {
-                statement.setTimestamp(3, null);
+            COUNTER.removed(wasDone);
+        } catch (final SQLException e) {
+            throw new OperationException("Erro ao excluir ordem", e);
+        }
+    }
+
+    // Escritas de uma única ordem sobre uma conexão já em uso, feitas sozinhas
+    // ou agrupadas numa transação maior (GroupCommit). Quem chama ajusta as
+    // contagens depois que a transação for confirmada
+    static void insert(final PooledConnection connection, final Order order) throws SQLException {
+        if (Shards.isSharded()) {
+            insertWithCode(connection, order);
+            return;
+        }
+
+        final var statement = connection.prepare(
+                "insert into " + TABLE + " (name, description, created_at) values (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS);
+        statement.setString(1, order.getName());
+        statement.setString(2, order.getDescription());
+        statement.setTimestamp(3, createdAt(order));
+
+        if (statement.executeUpdate() == 0) {
+            throw new SQLException("Não foi possível cadastrar essa ordem");
+        }
+
+        // O código gerado pelo banco volta na própria ordem
+        try (final var keys = statement.getGeneratedKeys()) {
+            if (keys.next()) {
+                order.setCode(keys.getLong(1));
             }
+        }
+    }
 
-            statement.setLong(4, order.getCode());
+    // Com várias partes o código não vem do banco: cada parte usa só os códigos
+    // que o anel atribui a ela, então as partes nunca repetem um código
+    private static void insertWithCode(final PooledConnection connection, final Order order) throws SQLException {
+        final var statement = connection
+                .prepare("insert into " + TABLE + " (code, name, description, created_at) values (?, ?, ?, ?)");
+        order.setCode(nextCode());
+        statement.setLong(1, order.getCode());
+        statement.setString(2, order.getName());
+        statement.setString(3, order.getDescription());
+        statement.setTimestamp(4, createdAt(order));
 
-            if (statement.executeUpdate() == 0) {
-                throw new SQLException("Não foi possível atualizar essa ordem");
+        if (statement.executeUpdate() == 0) {
+            throw new SQLException("Não foi possível cadastrar essa ordem");
+        }
+    }
+
+    // Lotes com códigos atribuídos aqui vão ao banco em grupos de
+    // JDBC_BATCH_SIZE, como os lotes sem partes
+    private static void insertAllWithCode(final PooledConnection connection, final List<Order> orders)
+            throws SQLException {
+        final var statement = connection
+                .prepare("insert into " + TABLE + " (code, name, description, created_at) values (?, ?, ?, ?)");
+
+        for (int start = 0; start < orders.size(); start += Constants.JDBC_BATCH_SIZE) {
+            final var group = orders.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, orders.size()));
+            for (final var order : group) {
+                order.setCode(nextCode());
+                statement.setLong(1, order.getCode());
+                statement.setString(2, order.getName());
+                statement.setString(3, order.getDescription());
+                statement.setTimestamp(4, createdAt(order));
+                statement.addBatch();
+            }
+
+            requireAll(statement.executeBatch(), "Não foi possível cadastrar as ordens");
+        }
+    }
+
+    private static long nextCode() {
+        while (true) {
+            final var code = LAST_CODE.incrementAndGet();
+            if (Shards.RING.owner(code) == Shards.self()) {
+                return code;
             }
+        }
+    }
+
+    // Retorna se a ordem já estava concluída antes da edição
+    static boolean updateRow(final PooledConnection connection, final Order order) throws SQLException {
+        final var previous = isDone(connection, order.getCode());
+
+        final var statement = connection
+                .prepare("update " + TABLE + " set name = ?, description = ?, done_at = ? where code = ?");
+        statement.setString(1, order.getName());
+        statement.setString(2, order.getDescription());
+
+        if (order.getDoneAt() != null) {
+            statement.setTimestamp(3, new Timestamp(
+                    ZonedDateTime.of(order.getDoneAt(), ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        } else {
+            statement.setTimestamp(3, null);
+        }
+
+        statement.setLong(4, order.getCode());
+
+        if (previous == null || statement.executeUpdate() == 0) {
+            throw new SQLException("Não foi possível atualizar essa ordem");
+        }
+        return previous;
+    }
+
+    // Retorna se a ordem excluída estava concluída
+    static boolean deleteRow(final PooledConnection connection, final Order order) throws SQLException {
+        final var previous = isDone(connection, order.getCode());
+
+        final var statement = connection.prepare("delete from " + TABLE + " where code = ?");
+        statement.setLong(1, order.getCode());
+
+        if (previous == null || statement.executeUpdate() == 0) {
+            throw new SQLException("Não foi possível excluir essa ordem");
+        }
+        return previous;
+    }
+
+    static OrderCounter counter() {
+        return COUNTER;
+    }
+
+    // Cadastros, edições e exclusões em lote seguem numa única transação: ou
+    // todas as ordens são gravadas, ou nenhuma. Os comandos vão ao banco em
+    // grupos de JDBC_BATCH_SIZE para não acumular o lote inteiro no driver
+    public void createAll(final List<Order> orders) {
+        final var sql = "insert into " + TABLE + " (name, description, created_at) values (?, ?, ?)";
+
+        try {
+            transaction(connection -> {
+                if (Shards.isSharded()) {
+                    insertAllWithCode(connection, orders);
+                    return null;
+                }
+
+                final var statement = connection.prepare(sql, Statement.RETURN_GENERATED_KEYS);
+
+                for (int start = 0; start < orders.size(); start += Constants.JDBC_BATCH_SIZE) {
+                    final var group = orders.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, orders.size()));
+                    for (final var order : group) {
+                        statement.setString(1, order.getName());
+                        statement.setString(2, order.getDescription());
+                        statement.setTimestamp(3, createdAt(order));
+                        statement.addBatch();
+                    }
+
+                    requireAll(statement.executeBatch(), "Não foi possível cadastrar as ordens");
+
+                    // Os códigos gerados voltam na mesma ordem das linhas inseridas
+                    try (final var keys = statement.getGeneratedKeys()) {
+                        for (final var order : group) {
+                            if (!keys.next()) {
+                                throw new SQLException("Códigos das ordens cadastradas não retornados");
+                            }
+                            order.setCode(keys.getLong(1));
+                        }
+                    }
+                }
+                return null;
+            });
         } catch (final SQLException e) {
-            throw new OperationException("Erro ao atualizar ordem", e);
+            throw new OperationException("Erro ao salvar ordens", e);
         }
+
+        COUNTER.adjust(orders.size(), 0);
     }
 
-    public void delete(final Order order) {
+    public void updateAll(final List<Order> orders) {
+        final var sql = "update " + TABLE + " set name = ?, description = ?, done_at = ? where code = ?";
+
+        try {
+            final var doneDelta = transaction(connection -> {
+                final var previous = doneByCode(connection, orders);
+                requireExisting(previous, orders);
+                final var statement = connection.prepare(sql);
+
+                var delta = 0L;
+                for (int start = 0; start < orders.size(); start += Constants.JDBC_BATCH_SIZE) {
+                    final var group = orders.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, orders.size()));
+                    for (final var order : group) {
+                        final var wasDone = previous.get(order.getCode());
+                        final var isDone = order.getDoneAt() != null;
+                        delta += (isDone ? 1 : 0) - (wasDone ? 1 : 0);
+                        previous.put(order.getCode(), isDone);
+
+                        statement.setString(1, order.getName());
+                        statement.setString(2, order.getDescription());
+                        statement.setTimestamp(3, isDone ? Timestamp.valueOf(order.getDoneAt()) : null);
+                        statement.setLong(4, order.getCode());
+                        statement.addBatch();
+                    }
+
+                    requireAll(statement.executeBatch(), "Não foi possível atualizar as ordens");
+                }
+                return delta;
+            });
+
+            COUNTER.adjust(0, doneDelta);
+        } catch (final SQLException e) {
+            throw new OperationException("Erro ao atualizar ordens", e);
+        }
+    }
+
+    public void deleteAll(final List<Order> orders) {
         final var sql = "delete from " + TABLE + " where code = ?";
 
-        try (final var statement = getConnection().prepareStatement(sql)) {
-            statement.setLong(1, order.getCode());
+        try {
+            final var doneDeleted = transaction(connection -> {
+                final var previous = doneByCode(connection, orders);
+                requireExisting(previous, orders);
+                final var statement = connection.prepare(sql);
 
-            if (statement.executeUpdate() == 0) {
-                throw new SQLException("Não foi possível excluir essa ordem");
-            }
+                for (int start = 0; start < orders.size(); start += Constants.JDBC_BATCH_SIZE) {
+                    final var group = orders.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, orders.size()));
+                    for (final var order : group) {
+                        statement.setLong(1, order.getCode());
+                        statement.addBatch();
+                    }
+
+                    requireAll(statement.executeBatch(), "Não foi possível excluir as ordens");
+                }
+                return previous.values().stream().filter(Boolean::booleanValue).count();
+            });
+
+            COUNTER.adjust(-orders.size(), -doneDeleted);
         } catch (final SQLException e) {
-            throw new OperationException("Erro ao excluir ordem", e);
+            throw new OperationException("Erro ao excluir ordens", e);
         }
     }
 
     public Long countAll() {
-        try (final var statement = getConnection().createStatement()) {
-            final var resultSet = statement.executeQuery("select count(*) from orders");
-            resultSet.next();
-            return (long) resultSet.getInt(1);
-        } catch (final SQLException e) {
-            throw new OperationException("Erro ao contar ordens", e);
+        return COUNTER.getTotal();
+    }
+
+    public OrderCounts countByStatus() {
+        return COUNTER.get();
+    }
+
+    // Recalcula as quantidades (e o último código usado) a partir da tabela;
+    // feito ao iniciar o servidor, antes de qualquer escrita
+    public static void reconcile() throws SQLException {
+        final var sql = "select count(*), count(done_at), coalesce(max(code), 0) from " + TABLE;
+
+        final var previous = execute(connection -> {
+            try (final var resultSet = connection.prepare(sql).executeQuery()) {
+                resultSet.next();
+                LAST_CODE.set(resultSet.getLong(3));
+                return COUNTER.reset(resultSet.getLong(1), resultSet.getLong(2));
+            }
+        });
+
+        final var current = COUNTER.get();
+        if (!current.equals(previous)) {
+            LOG.info("Contagem de ordens corrigida de {} para {}", previous, current);
+        }
+    }
+
+    // Aplica numa réplica as alterações recebidas do servidor principal, numa
+    // só transação; as contagens são refeitas no fim, pois a réplica não
+    // recebe escritas de outra origem
+    public static void apply(final ChangeSet changes) throws SQLException {
+        final var merge = "merge into " + TABLE + " (code, name, description, created_at, done_at) key (code)"
+                + " values (?, ?, ?, ?, ?)";
+        final var count = "select count(*), count(done_at), coalesce(max(code), 0) from " + TABLE;
+        final var orders = changes.getOrders() != null ? changes.getOrders() : List.<Order>of();
+        final var deleted = changes.getDeleted() != null ? changes.getDeleted() : List.<Long>of();
+
+        transaction(connection -> {
+            if (Boolean.TRUE.equals(changes.getSnapshot())) {
+                connection.prepare("delete from " + TABLE).executeUpdate();
+            }
+
+            for (int start = 0; start < deleted.size(); start += Constants.JDBC_BATCH_SIZE) {
+                final var group = deleted.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, deleted.size()));
+                prepareIn(connection, "delete from " + TABLE + " where code in ", "", group).executeUpdate();
+            }
+
+            final var statement = connection.prepare(merge);
+            for (int i = 0; i < orders.size(); i++) {
+                final var order = orders.get(i);
+                statement.setLong(1, order.getCode());
+                statement.setString(2, order.getName());
+                statement.setString(3, order.getDescription());
+                statement.setTimestamp(4, createdAt(order));
+                statement.setTimestamp(5, order.getDoneAt() != null ? Timestamp.valueOf(order.getDoneAt()) : null);
+                statement.addBatch();
+
+                if ((i + 1) % Constants.JDBC_BATCH_SIZE == 0 || i == orders.size() - 1) {
+                    statement.executeBatch();
+                }
+            }
+
+            try (final var resultSet = connection.prepare(count).executeQuery()) {
+                resultSet.next();
+                LAST_CODE.set(resultSet.getLong(3));
+                COUNTER.reset(resultSet.getLong(1), resultSet.getLong(2));
+            }
+            return null;
+        });
+    }
+
+    // Situação atual das ordens do lote, travando as linhas até o fim da transação
+    private static Map<Long, Boolean> doneByCode(final PooledConnection connection, final List<Order> orders)
+            throws SQLException {
+        final var codes = new ArrayList<Long>(orders.size());
+        orders.forEach(order -> codes.add(order.getCode()));
+
+        final var result = new HashMap<Long, Boolean>(orders.size() * 2);
+        for (int start = 0; start < codes.size(); start += Constants.JDBC_BATCH_SIZE) {
+            final var group = codes.subList(start, Math.min(start + Constants.JDBC_BATCH_SIZE, codes.size()));
+            final var statement = prepareIn(connection, "select code, done_at from " + TABLE + " where code in ",
+                    " for update", group);
+
+            try (final var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.put(resultSet.getLong(1), resultSet.getTimestamp(2) != null);
+                }
+            }
+        }
+        return result;
+    }
+
+    // A lista de parâmetros é arredondada para uma potência de dois, repetindo
+    // o último código, para que poucos comandos distintos ocupem o cache de
+    // comandos preparados da conexão
+    private static PreparedStatement prepareIn(final PooledConnection connection, final String prefix,
+            final String suffix, final List<Long> codes) throws SQLException {
+        final var slots = Integer.highestOneBit(Math.max(1, codes.size() * 2 - 1));
+        final var statement = connection.prepare(prefix + "(" + placeholders(slots) + ")" + suffix);
+
+        for (int i = 0; i < slots; i++) {
+            statement.setLong(i + 1, codes.get(Math.min(i, codes.size() - 1)));
         }
+        return statement;
+    }
+
+    private static String placeholders(final int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // O lote inteiro é conferido antes do primeiro comando ir ao banco
+    private static void requireExisting(final Map<Long, Boolean> previous, final List<Order> orders)
+            throws SQLException {
+        for (final var order : orders) {
+            if (!previous.containsKey(order.getCode())) {
+                throw new SQLException("A ordem de código " + order.getCode() + " não existe");
+            }
+        }
+    }
+
+    private static void requireAll(final int[] results, final String message) throws SQLException {
+        for (final var result : results) {
+            if (result == 0) {
+                throw new SQLException(message);
+            }
+        }
+    }
+
+    // Situação atual da ordem (nulo se não existir), travando a linha até o fim da transação
+    private static Boolean isDone(final PooledConnection connection, final Long code) throws SQLException {
+        final var statement = connection.prepare("select done_at from " + TABLE + " where code = ? for update");
+        statement.setLong(1, code);
+
+        try (final var resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            return resultSet.getTimestamp(1) != null;
+        }
+    }
+
+    // A data de cadastro é gravada em milissegundos, a precisão do cursor de
+    // paginação e do formato binário: com mais casas, ordens do mesmo
+    // milissegundo ficariam entre uma página e a seguinte. A ordem fica com o
+    // valor gravado
+    private static Timestamp createdAt(final Order order) {
+        if (order.getCreatedAt() == null) {
+            return null;
+        }
+
+        order.setCreatedAt(order.getCreatedAt().truncatedTo(ChronoUnit.MILLIS));
+        return Timestamp.valueOf(order.getCreatedAt());
+    }
+
+    private static Order toOrder(final ResultSet resultSet) throws SQLException {
+        final var createdAt = resultSet.getTimestamp("created_at");
+        final var doneAt = resultSet.getTimestamp("done_at");
+
+        return new Order()
+                .setCode(resultSet.getLong("code"))
+                .setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .setDescription(resultSet.getString("description"))
+                .setDoneAt(doneAt != null ? doneAt.toLocalDateTime() : null)
+                .setName(resultSet.getString("name"));
     }
 
 }
@@ -1,15 +1,31 @@
 package br.edu.ufersa.cc.sd.services;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.edu.ufersa.cc.sd.cache.EvictionPolicy;
+import br.edu.ufersa.cc.sd.cache.NegativeCache;
+import br.edu.ufersa.cc.sd.enums.EvictionMode;
 import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
 import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.utils.Constants;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -17,27 +33,27 @@ public class CacheService {
 
     @Getter
     private static class Metadata<T> {
-        private static Integer nextPosition = 1;
-
         @Setter
-        private T item;
+        private volatile T item;
 
+        private final Long code;
         private final LocalDateTime firstUse;
-        private LocalDateTime lastUse;
-        private Integer uses;
-        private Integer position;
+        private volatile LocalDateTime lastUse;
+        private final AtomicInteger uses;
+        private final Long position;
 
-        public Metadata(final T item) {
+        public Metadata(final Long code, final T item, final Long position) {
+            this.code = code;
             this.item = item;
             this.firstUse = LocalDateTime.now();
             this.lastUse = LocalDateTime.now();
-            this.uses = 0;
-            this.position = nextPosition++;
+            this.uses = new AtomicInteger();
+            this.position = position;
         }
 
         public T getItemAndRegister() {
-            LOG.info("Registrando uso do item");
-            uses++;
+            LOG.debug("Registrando uso do item");
+            uses.incrementAndGet();
             lastUse = LocalDateTime.now();
             return item;
         }
@@ -45,19 +61,56 @@ public class CacheService {
 
     private static final Logger LOG = LoggerFactory.getLogger(CacheService.class.getSimpleName());
 
-    private static final Integer CAPACITY = 30;
-    private static final Map<Long, Metadata<Order>> CACHE = new HashMap<>(CAPACITY);
+    private final Integer capacity;
+
+    // Consultas vão direto ao mapa concorrente; a política de remoção guarda o
+    // próprio estado e só é alterada com a trava
+    private final Map<Long, Metadata<Order>> cache;
+    private final EvictionPolicy<Long> policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong nextPosition = new AtomicLong(1);
+
+    // Buscas em andamento no servidor: quem não encontra a ordem no cache
+    // enquanto outra thread já a busca aguarda o mesmo resultado
+    private final Map<Long, CompletableFuture<Order>> inFlight = new ConcurrentHashMap<>();
+
+    // Códigos que o servidor informou não existirem, respondidos aqui mesmo
+    private final NegativeCache<Long> absent = new NegativeCache<>(Constants.NEGATIVE_CACHE_CAPACITY,
+            Constants.NEGATIVE_CACHE_TTL);
+
+    // Incrementado, com a trava, a cada alteração feita aqui ou anunciada pelo
+    // servidor; uma ordem buscada enquanto isso não é guardada, pois pode ser
+    // anterior à alteração. A comparação também é feita com a trava, junto
+    // com a entrada no cache
+    private final AtomicLong invalidations = new AtomicLong();
 
-    private Integer hits = 0;
-    private Integer misses = 0;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CacheService() {
+        this(Constants.EVICTION, Constants.CACHE_CAPACITY);
+    }
+
+    public CacheService(final EvictionMode mode, final Integer capacity) {
+        LOG.info("Cache com capacidade {} e política {}", capacity, mode);
+        this.capacity = capacity;
+        this.cache = new ConcurrentHashMap<>(capacity * 2);
+        this.policy = EvictionPolicy.create(mode, capacity);
+    }
 
     public Order find(final Long code, final Supplier<Order> redirectCallback) {
         final Order order;
+        final var cached = cache.get(code);
 
-        if (CACHE.containsKey(code)) {
+        if (cached != null) {
             LOG.info("Ordem de código {} encontrada no cache", code);
-            hits++;
-            order = CACHE.get(code).getItemAndRegister();
+            hits.increment();
+            registerAccess(code);
+            order = cached.getItemAndRegister();
+        } else if (absent.contains(code)) {
+            LOG.info("Ordem de código {} sabidamente inexistente", code);
+            hits.increment();
+            order = null;
         } else {
             LOG.warn("Ordem de código {} NÃO encontrada no cache", code);
             order = tryToGetFromCallback(code, redirectCallback);
@@ -67,21 +120,74 @@ public class CacheService {
         return order;
     }
 
+    // Responde os códigos em cache e busca todos os demais numa única chamada;
+    // o resultado segue a ordem dos códigos pedidos, sem os inexistentes
+    public ArrayList<Order> findAll(final List<Long> codes, final Function<List<Long>, List<Order>> fetchMissing) {
+        final var found = new HashMap<Long, Order>(codes.size() * 2);
+        final var missing = new ArrayList<Long>();
+
+        for (final var code : new LinkedHashSet<>(codes)) {
+            final var cached = cache.get(code);
+            if (cached != null) {
+                hits.increment();
+                registerAccess(code);
+                found.put(code, cached.getItemAndRegister());
+            } else if (absent.contains(code)) {
+                hits.increment();
+            } else {
+                missing.add(code);
+            }
+        }
+        LOG.info("{} de {} ordens encontradas no cache", codes.size() - missing.size(), codes.size());
+
+        if (!missing.isEmpty()) {
+            final var seen = invalidations.get();
+            final var fetched = fetchMissing.apply(missing);
+            misses.add(missing.size());
+
+            fetched.forEach(order -> found.put(order.getCode(), order));
+            lock.lock();
+            try {
+                if (invalidations.get() == seen) {
+                    addAllToCache(fetched);
+                    missing.stream()
+                            .filter(code -> !found.containsKey(code))
+                            .forEach(absent::add);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        logCacheStatus();
+
+        final var result = new ArrayList<Order>(found.size());
+        new LinkedHashSet<>(codes).forEach(code -> {
+            final var order = found.get(code);
+            if (order != null) {
+                result.add(order);
+            }
+        });
+        return result;
+    }
+
     public void update(final Order order) {
         final var code = order.getCode();
+        changed(() -> absent.remove(code));
+        final var cached = cache.get(code);
 
-        if (CACHE.containsKey(code)) {
+        if (cached != null) {
             // Se a ordem editada estiver em cache...
             LOG.info("Ordem de código {} encontrada no cache", code);
-            hits++;
-            final var cached = CACHE.get(code);
+            hits.increment();
 
             // ... ela será substituída pela nova, na mesma posição em que está...
             cached.setItem(order);
+            registerAccess(code);
         } else {
             // Se não estive em cache...
             LOG.warn("Ordem de código {} NÃO encontrada no cache", code);
-            misses++;
+            misses.increment();
 
             // ... ela será adicionada ao cache na posição mais recente
             addToCache(order);
@@ -90,69 +196,257 @@ public class CacheService {
         logCacheStatus();
     }
 
+    // Lotes só renovam as ordens que já estão no cache: uma importação grande
+    // não deve expulsar as ordens mais consultadas
+    public void updateAll(final List<Order> orders) {
+        changed(() -> {
+            for (final var order : orders) {
+                absent.remove(order.getCode());
+                final var cached = cache.get(order.getCode());
+                if (cached != null) {
+                    cached.setItem(order);
+                }
+            }
+        });
+
+        LOG.info("{} ordens editadas em lote", orders.size());
+        logCacheStatus();
+    }
+
     public void delete(final Order order) {
         removeFromCache(order);
     }
 
+    public void deleteAll(final List<Order> orders) {
+        changed(() -> {
+            for (final var order : orders) {
+                if (cache.remove(order.getCode()) != null) {
+                    policy.onRemove(order.getCode());
+                }
+            }
+        });
+
+        LOG.info("{} ordens removidas do cache em lote", orders.size());
+        logCacheStatus();
+    }
+
+    // Uma ordem recém-cadastrada pode ter recebido um código antes dado como inexistente
+    public void created(final Order order) {
+        changed(() -> {
+            if (order != null && order.getCode() != null) {
+                absent.remove(order.getCode());
+            } else {
+                absent.clear();
+            }
+        });
+    }
+
+    public void createdAll(final List<Order> orders) {
+        orders.forEach(this::created);
+    }
+
+    // Ordens alteradas fora deste proxy deixam o cache; a próxima consulta as busca de novo
+    public void invalidate(final Collection<Long> codes) {
+        changed(() -> {
+            for (final var code : codes) {
+                absent.remove(code);
+                if (cache.remove(code) != null) {
+                    policy.onRemove(code);
+                }
+            }
+        });
+
+        LOG.info("{} ordens descartadas do cache por alterações no servidor", codes.size());
+    }
+
+    // Sem saber o que mudou (assinatura interrompida), nada do cache é confiável
+    public void invalidateAll() {
+        changed(() -> {
+            cache.keySet().forEach(policy::onRemove);
+            cache.clear();
+            absent.clear();
+        });
+
+        LOG.info("Cache descartado por completo");
+    }
+
+    public Long getHits() {
+        return hits.sum();
+    }
+
+    public Long getMisses() {
+        return misses.sum();
+    }
+
+    public Integer getSize() {
+        return cache.size();
+    }
+
     private Order tryToGetFromCallback(final Long code, final Supplier<Order> redirectCallback) {
+        final var flight = new CompletableFuture<Order>();
+        final var running = inFlight.putIfAbsent(code, flight);
+        if (running != null) {
+            LOG.info("Aguardando busca já em andamento pela ordem de código {}", code);
+            return await(running);
+        }
+
         try {
-            final var result = redirectCallback.get();
-            addToCache(result);
-            misses++;
-            return CACHE.get(code).getItemAndRegister();
-        } catch (final NotFoundException e) {
-            return null;
+            // A busca anterior pode ter terminado entre a consulta ao cache e agora
+            final var cached = cache.get(code);
+            final var result = cached != null ? cached.getItemAndRegister() : fetch(code, redirectCallback);
+            flight.complete(result);
+            return result;
+        } catch (final RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(code, flight);
         }
     }
 
-    private void logCacheStatus() {
-        final var builder = new StringBuilder();
-        builder.append("CACHE: {} hits, {} misses\n");
-
-        CACHE.values().stream()
-                .sorted((a, b) -> a.getPosition().compareTo(b.getPosition()))
-                .forEachOrdered(metadata -> builder.append("[").append(metadata.getPosition()).append("ª #")
-                        .append(metadata.getItem().getCode()).append(" ")
-                        .append(metadata.uses).append("x] "));
+    private Order fetch(final Long code, final Supplier<Order> redirectCallback) {
+        final var seen = invalidations.get();
 
-        for (int i = CACHE.size(); i <= CAPACITY; i++) {
-            builder.append("[]");
+        Order result;
+        try {
+            result = redirectCallback.get();
+            misses.increment();
+        } catch (final NotFoundException e) {
+            result = null;
         }
 
-        final var prompt = builder.toString();
+        lock.lock();
+        try {
+            if (invalidations.get() != seen) {
+                return result;
+            }
+            if (result == null) {
+                absent.add(code);
+                return null;
+            }
+            return addToCache(result).getItemAndRegister();
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        LOG.info(prompt, hits, misses);
+    private Order await(final CompletableFuture<Order> flight) {
+        try {
+            final var result = flight.join();
+            if (result != null) {
+                misses.increment();
+            }
+            return result;
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
-    private void addToCache(final Order order) {
-        LOG.info("Preparando cache para receber a ordem de código {}", order.getCode());
+    // Se outra thread estiver mexendo na política, este uso deixa de ser
+    // contado: as políticas são aproximações e leituras não devem enfileirar
+    private void registerAccess(final Long code) {
+        if (lock.tryLock()) {
+            try {
+                policy.onAccess(code);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 
-        if (CACHE.size() >= CAPACITY) {
-            LOG.warn("Cache lotado");
-            removeOneFromCache();
+    private void logCacheStatus() {
+        LOG.info("CACHE: {} hits, {} misses, {}/{} ocupado", hits.sum(), misses.sum(), cache.size(), capacity);
+
+        // Percorrer o cache inteiro custa caro, então só é feito quando pedido
+        if (LOG.isTraceEnabled()) {
+            final var builder = new StringBuilder();
+            cache.values().stream()
+                    .sorted((a, b) -> a.getPosition().compareTo(b.getPosition()))
+                    .forEachOrdered(metadata -> builder.append("[").append(metadata.getPosition()).append("ª #")
+                            .append(metadata.getCode()).append(" ")
+                            .append(metadata.getUses()).append("x] "));
+
+            LOG.trace(builder.toString());
         }
+    }
 
+    private Metadata<Order> addToCache(final Order order) {
         LOG.info("Adicionando ordem de código {} ao cache", order.getCode());
-        CACHE.put(order.getCode(), new Metadata<>(order));
+        final var metadata = new Metadata<>(order.getCode(), order, nextPosition.getAndIncrement());
+
+        lock.lock();
+        try {
+            cache.put(order.getCode(), metadata);
+            policy.onInsert(order.getCode());
+
+            while (cache.size() > capacity) {
+                LOG.warn("Cache lotado");
+                if (!removeOneFromCache()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return metadata;
+    }
+
+    private void addAllToCache(final List<Order> orders) {
+        lock.lock();
+        try {
+            for (final var order : orders) {
+                cache.put(order.getCode(), new Metadata<>(order.getCode(), order, nextPosition.getAndIncrement()));
+                policy.onInsert(order.getCode());
+            }
+
+            while (cache.size() > capacity) {
+                if (!removeOneFromCache()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private void removeOneFromCache() {
+    private boolean removeOneFromCache() {
         LOG.info("Escolhendo ordem para remover do cache...");
 
-        final var orderToRemove = chooseByFifo();
-        removeFromCache(orderToRemove);
-    }
+        final var victim = policy.evict();
+        if (victim == null) {
+            return false;
+        }
 
-    private Order chooseByFifo() {
-        return CACHE.values().stream()
-                .min((a, b) -> a.getPosition().compareTo(b.getPosition()))
-                .orElseThrow().getItem();
+        // A política pode recusar a própria ordem recém-chegada
+        LOG.info("Removendo ordem de código {} do cache...", victim);
+        cache.remove(victim);
+        return true;
     }
 
     private void removeFromCache(final Order order) {
         LOG.info("Removendo ordem de código {} do cache...", order.getCode());
-        CACHE.remove(order.getCode());
+
+        changed(() -> {
+            if (cache.remove(order.getCode()) != null) {
+                policy.onRemove(order.getCode());
+            }
+        });
+
         logCacheStatus();
     }
 
+    private void changed(final Runnable change) {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            change.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
 }
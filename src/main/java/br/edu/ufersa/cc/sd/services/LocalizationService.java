@@ -1,105 +1,108 @@
 package br.edu.ufersa.cc.sd.services;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.edu.ufersa.cc.sd.dto.Lease;
+import br.edu.ufersa.cc.sd.dto.Registration;
 import br.edu.ufersa.cc.sd.dto.Request;
 import br.edu.ufersa.cc.sd.dto.Response;
 import br.edu.ufersa.cc.sd.enums.Operation;
 import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.network.ResponseSink;
+import br.edu.ufersa.cc.sd.network.Transport;
+import br.edu.ufersa.cc.sd.registry.ProxyRegistry;
 import br.edu.ufersa.cc.sd.utils.Constants;
-import lombok.Getter;
 
 public class LocalizationService implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(LocalizationService.class.getSimpleName());
 
-    @Getter
-    private boolean isAlive = true;
-    private ServerSocket serverSocket;
+    private final Transport transport = Transport.create("localization", Constants.LOCALIZATION_PORT,
+            this::handle);
+    private final ProxyRegistry registry = new ProxyRegistry(Constants.REGISTRY_TTL);
 
     @Override
     public void run() {
         try {
-            serverSocket = new ServerSocket(Constants.LOCALIZATION_PORT);
+            transport.start();
             LOG.info("Servidor de localização iniciado");
-            LOG.info("{}", serverSocket);
+            LOG.info("{}", transport);
 
             final var localAddress = InetAddress.getLocalHost();
             LOG.info("Disponível pelo endereço {}:{}", localAddress.getHostAddress(), Constants.LOCALIZATION_PORT);
-            new Thread(() -> waitForClients(serverSocket)).start();
         } catch (final IOException e) {
             e.printStackTrace();
         }
     }
 
     public void stop() {
-        if (serverSocket != null && !serverSocket.isClosed()) {
-            try {
-                serverSocket.close();
-            } catch (final IOException e) {
-                e.printStackTrace();
-            }
-        }
+        transport.stop();
+    }
 
-        isAlive = false;
-        serverSocket = null;
+    public boolean isAlive() {
+        return transport.isAlive();
     }
 
-    private void waitForClients(final ServerSocket serverSocket) {
-        try {
-            while (isAlive) {
-                LOG.info("Aguardando clientes...");
-                final var client = serverSocket.accept();
-                new Thread(() -> handleClient(client)).start();
-            }
-        } catch (final SocketException e) {
-            LOG.info("Servidor encerrado");
-        } catch (final IOException e) {
-            e.printStackTrace();
+    private Response<? extends Serializable> handle(final Request<? extends Serializable> request,
+            final ResponseSink sink) {
+        LOG.info("Executando operação {}...", request.getOperation());
+        final var item = request.getItem();
+        final var registration = item instanceof Registration ? (Registration) item : null;
+
+        switch (request.getOperation()) {
+            case LOCALIZE:
+                final var address = registry.leastLoaded();
+                return new Response<>(address != null ? address : fallback());
+
+            case LOCALIZE_LEASE:
+                final var addresses = new ArrayList<>(registry.ranked());
+                if (addresses.isEmpty()) {
+                    addresses.add(fallback());
+                }
+                return new Response<>(new Lease(addresses, Constants.LEASE_TTL.longValue()));
+
+            case REGISTER:
+                if (registration == null) {
+                    return new Response<>(ResponseStatus.ERROR, "Registro sem endereço do proxy");
+                }
+                registry.register(registration);
+                return new Response<>(ResponseStatus.OK);
+
+            case HEARTBEAT:
+                if (registration == null || !registry.heartbeat(registration)) {
+                    return new Response<>(ResponseStatus.NOT_FOUND, "Proxy não registrado");
+                }
+                return new Response<>(ResponseStatus.OK);
+
+            case DEREGISTER:
+                if (registration != null) {
+                    registry.deregister(registration);
+                }
+                return new Response<>(ResponseStatus.OK);
+
+            default:
+                return new Response<>(ResponseStatus.ERROR,
+                        "O servidor de localização suporta apenas a operação " + Operation.LOCALIZE.toString(),
+                        fallback());
         }
     }
 
-    private void handleClient(final Socket client) {
-        LOG.info("Cliente conectado: {}", client.getInetAddress());
+    // Sem proxies registrados, indica o proxy local na porta configurada, como
+    // antes do registro existir
+    private InetSocketAddress fallback() {
         try {
-            final var output = new ObjectOutputStream(client.getOutputStream());
-            final var input = new ObjectInputStream(client.getInputStream());
-
-            LOG.info("Aguardando mensagens...");
-
-            @SuppressWarnings("unchecked")
-            final var request = (Request<Serializable>) input.readObject();
-            LOG.info("Executando operação {}...", request.getOperation());
-
-            final var address = new InetSocketAddress(InetAddress.getLocalHost().getHostAddress(),
-                    Constants.PROXY_PORT);
-
-            final Response<InetSocketAddress> response;
-            if (request.getOperation() == Operation.LOCALIZE) {
-                response = new Response<>(address);
-            } else {
-                response = new Response<>(ResponseStatus.ERROR,
-                        "O servidor de localização suporta apenas a operação " + Operation.LOCALIZE.toString(),
-                        address);
-            }
-
-            output.writeObject(response);
-
-            client.close();
-            LOG.info("Cliente encerrado: {}", client.getInetAddress());
-        } catch (final IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+            return new InetSocketAddress(InetAddress.getLocalHost().getHostAddress(), Constants.PROXY_PORT);
+        } catch (final UnknownHostException e) {
+            throw new ConnectionException("Não foi possível determinar o endereço do proxy", e);
         }
     }
 
@@ -2,15 +2,28 @@ package br.edu.ufersa.cc.sd.services;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.edu.ufersa.cc.sd.dto.ChangeSet;
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
+import br.edu.ufersa.cc.sd.dto.Page;
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
 import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
 import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.replication.Replication;
+import br.edu.ufersa.cc.sd.repositories.GroupCommit;
+import br.edu.ufersa.cc.sd.repositories.Migrations;
 import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+import br.edu.ufersa.cc.sd.utils.Constants;
+import br.edu.ufersa.cc.sd.utils.Cursors;
 import lombok.NoArgsConstructor;
 
 @NoArgsConstructor
@@ -18,15 +31,26 @@ public class OrderService {
 
     private static final Logger LOG = LoggerFactory.getLogger(OrderService.class.getSimpleName());
 
+    // Agrupamento opcional das escritas isoladas, compartilhado por todas as instâncias
+    private static final GroupCommit GROUP_COMMIT = Constants.GROUP_COMMIT_WINDOW > 0
+            ? new GroupCommit(Constants.GROUP_COMMIT_WINDOW, Constants.GROUP_COMMIT_MAX)
+            : null;
+
     private final OrderRepository orderRepository = new OrderRepository();
 
     public static void initialize() throws SQLException {
-        try (final var statement = OrderRepository.getConnection().createStatement()) {
-            statement.executeUpdate(
-                    "create table orders (code BIGINT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(255), description VARCHAR(255), created_at TIMESTAMP, done_at TIMESTAMP)");
-            LOG.info("Tabela criada");
+        try {
+            Migrations.migrate();
+            LOG.info("Esquema do banco de dados atualizado");
+
+            OrderRepository.reconcile();
 
+            // Dados de exemplo apenas num banco vazio; a réplica recebe os do principal
             final var service = new OrderService();
+            if (Replication.isReplica() || service.countAll() > 0) {
+                return;
+            }
+
             Stream.iterate(1, i -> i + 1)
                     .limit(100)
                     .forEach(i -> {
@@ -46,29 +70,133 @@ public class OrderService {
         return orderRepository.countAll();
     }
 
+    public OrderCounts countByStatus() {
+        return orderRepository.countByStatus();
+    }
+
     public List<Order> listAll() {
         LOG.info("Listando todas as ordens...");
         return orderRepository.listAll();
     }
 
+    public Long streamAll(final Consumer<ArrayList<Order>> consumer) {
+        LOG.info("Transmitindo todas as ordens...");
+        return orderRepository.streamAll(Constants.STREAM_CHUNK, consumer);
+    }
+
+    public Page listPage(final PageRequest request) {
+        final var size = pageSize(request);
+        final var last = request.getCursor() != null ? Cursors.decode(request.getCursor()) : null;
+        LOG.info("Listando página de {} ordens...", size);
+
+        // Uma ordem a mais indica se existe a página seguinte
+        final var items = new ArrayList<>(orderRepository.listAfter(last, size + 1));
+        String next = null;
+        if (items.size() > size) {
+            items.remove(size);
+            next = Cursors.encode(items.get(size - 1));
+        }
+
+        return new Page(items, next);
+    }
+
+    // Tamanho efetivo da página; também usado pelo proxy ao juntar páginas das partes
+    public static int pageSize(final PageRequest request) {
+        return Math.min(request.getSize() != null && request.getSize() > 0 ? request.getSize()
+                : Constants.PAGE_SIZE, Constants.MAX_PAGE_SIZE);
+    }
+
     public void create(final Order order) {
-        orderRepository.create(order);
+        if (GROUP_COMMIT != null) {
+            GROUP_COMMIT.create(order);
+        } else {
+            orderRepository.create(order);
+        }
+        Replication.CHANGES.record(order);
         LOG.info("Ordem cadastrada");
     }
 
+    public void createAll(final List<Order> orders) {
+        orderRepository.createAll(orders);
+        Replication.CHANGES.recordAll(orders);
+        LOG.info("{} ordens cadastradas", orders.size());
+    }
+
     public Order findByCode(final Long code) throws NotFoundException {
         LOG.info("Buscando ordem...");
         return orderRepository.findByCode(code);
     }
 
+    public List<Order> findAllByCode(final List<Long> codes) {
+        LOG.info("Buscando {} ordens...", codes.size());
+        return codes.isEmpty() ? new ArrayList<>() : orderRepository.findAllByCode(codes);
+    }
+
     public void update(final Order order) {
-        orderRepository.update(order);
+        if (GROUP_COMMIT != null) {
+            GROUP_COMMIT.update(order);
+        } else {
+            orderRepository.update(order);
+        }
+        Replication.CHANGES.record(order);
         LOG.info("Ordem atualizada");
     }
 
+    public void updateAll(final List<Order> orders) {
+        orderRepository.updateAll(orders);
+        Replication.CHANGES.recordAll(orders);
+        LOG.info("{} ordens atualizadas", orders.size());
+    }
+
     public void delete(final Order order) {
-        orderRepository.delete(order);
+        if (GROUP_COMMIT != null) {
+            GROUP_COMMIT.delete(order);
+        } else {
+            orderRepository.delete(order);
+        }
+        Replication.CHANGES.record(order);
         LOG.info("Ordem excluída");
     }
 
+    public void deleteAll(final List<Order> orders) {
+        orderRepository.deleteAll(orders);
+        Replication.CHANGES.recordAll(orders);
+        LOG.info("{} ordens excluídas", orders.size());
+    }
+
+    // Alterações que a réplica ainda não tem: o estado atual das ordens
+    // alteradas depois da posição dela, ou a base inteira se a posição não
+    // estiver mais no registro. A posição é lida antes das ordens, então uma
+    // escrita confirmada no meio volta a ser enviada na busca seguinte
+    public ChangeSet changesSince(final ReplicaPosition position) {
+        final var window = Replication.CHANGES.since(position);
+        final var epoch = Replication.CHANGES.getEpoch();
+
+        if (window.getCodes() == null) {
+            LOG.info("Enviando a base para a réplica em partes de {} ordens...", Constants.REPLICATION_PAGE);
+            return snapshotAfter(epoch, window.getSequence(), null);
+        }
+
+        // A cópia continua enquanto a posição do início dela seguir no
+        // registro; as alterações feitas durante a cópia vêm depois dela
+        if (position.getAfter() != null) {
+            return snapshotAfter(epoch, position.getSequence(), position.getAfter());
+        }
+
+        final var found = new ArrayList<>(findAllByCode(new ArrayList<>(window.getCodes())));
+        final var deleted = new LinkedHashSet<>(window.getCodes());
+        found.forEach(order -> deleted.remove(order.getCode()));
+
+        return new ChangeSet(epoch, window.getSequence(), false, found, new ArrayList<>(deleted), null);
+    }
+
+    // Uma parte da cópia da base, em ordem de código; cada parte é uma busca
+    // pela chave primária, sem percorrer a tabela inteira a cada pedido
+    private ChangeSet snapshotAfter(final Long epoch, final Long sequence, final Long after) {
+        final var page = orderRepository.listByCodeAfter(after, Constants.REPLICATION_PAGE);
+        final var next = page.size() < Constants.REPLICATION_PAGE ? null : page.get(page.size() - 1).getCode();
+
+        return new ChangeSet(epoch, sequence, after == null, new ArrayList<>(page), new ArrayList<>(), next);
+    }
+
 }
@@ -1,124 +1,185 @@
 package br.edu.ufersa.cc.sd.services;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.edu.ufersa.cc.sd.cache.InvalidationListener;
+import br.edu.ufersa.cc.sd.cache.ListingCache;
 import br.edu.ufersa.cc.sd.dto.Request;
 import br.edu.ufersa.cc.sd.dto.Response;
 import br.edu.ufersa.cc.sd.enums.ResponseStatus;
-import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
 import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
 import br.edu.ufersa.cc.sd.exceptions.OperationException;
 import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.ResponseSink;
+import br.edu.ufersa.cc.sd.network.Transport;
+import br.edu.ufersa.cc.sd.registry.RegistryClient;
+import br.edu.ufersa.cc.sd.sharding.ShardRouter;
 import br.edu.ufersa.cc.sd.utils.Constants;
-import lombok.Getter;
 
 public class ProxyService implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProxyService.class.getSimpleName());
 
-    @Getter
-    private boolean isAlive = true;
-    private ServerSocket serverSocket;
+    private final Transport transport = Transport.create("proxy", Constants.PROXY_PORT, this::handle);
     private final CacheService cacheService = new CacheService();
+    private final ListingCache listingCache = new ListingCache(Constants.LISTING_CACHE_TTL);
+
+    // Refeito a cada início, pois os canais e as verificações das réplicas
+    // terminam quando o proxy é parado
+    private ShardRouter shards;
+
+    // Requisições em andamento, informadas à localização como a carga deste proxy
+    private final AtomicInteger active = new AtomicInteger();
+    private RegistryClient registryClient;
+    private InvalidationListener invalidationListener;
 
     @Override
     public void run() {
         try {
-            serverSocket = new ServerSocket(Constants.PROXY_PORT);
+            shards = new ShardRouter(Constants.UPSTREAM_CONNECTIONS);
+
+            // Enquanto parado o proxy não recebeu os avisos de alteração
+            cacheService.invalidateAll();
+            listingCache.invalidated();
+
+            transport.start();
             LOG.info("Servidor Proxy iniciado");
-            LOG.info("{}", serverSocket);
-            new Thread(() -> waitForClients(serverSocket)).start();
+            LOG.info("{}", transport);
+
+            registryClient = new RegistryClient(Constants.PROXY_HOST, Constants.PROXY_PORT, active::get);
+            registryClient.start();
+
+            // Com vários proxies, cada um descarta o que os outros alteraram
+            if (Constants.CACHE_INVALIDATION) {
+                invalidationListener = new InvalidationListener(this::changed, () -> {
+                    cacheService.invalidateAll();
+                    listingCache.invalidated();
+                });
+                invalidationListener.start();
+            }
         } catch (final IOException e) {
             e.printStackTrace();
         }
     }
 
+    // As ordens alteradas são relidas nos servidores principais, pois as
+    // réplicas podem ainda não ter a alteração; se a leitura falhar, a
+    // listagem é descartada
+    private void changed(final List<Long> codes) {
+        cacheService.invalidate(codes);
+
+        try {
+            listingCache.changed(codes, () -> shards.findAllOnPrimaries(codes));
+        } catch (final RuntimeException e) {
+            LOG.warn("Listagem descartada: {}", e.getMessage());
+        }
+    }
+
     public void stop() {
-        if (serverSocket != null && !serverSocket.isClosed()) {
-            try {
-                serverSocket.close();
-            } catch (final IOException e) {
-                e.printStackTrace();
-            }
+        if (registryClient != null) {
+            registryClient.close();
+            registryClient = null;
+        }
+
+        if (invalidationListener != null) {
+            invalidationListener.close();
+            invalidationListener = null;
         }
 
-        isAlive = false;
-        serverSocket = null;
+        transport.stop();
+        if (shards != null) {
+            shards.close();
+        }
+    }
+
+    public boolean isAlive() {
+        return transport.isAlive();
     }
 
-    private void waitForClients(final ServerSocket serverSocket) {
+    private Response<? extends Serializable> handle(final Request<? extends Serializable> received,
+            final ResponseSink sink) {
+        active.incrementAndGet();
         try {
-            while (isAlive) {
-                LOG.info("Aguardando clientes...");
-                final var client = serverSocket.accept();
-                new Thread(() -> handleClient(client)).start();
-            }
-        } catch (final SocketException e) {
-            LOG.info("Servidor encerrado");
-        } catch (final IOException e) {
-            e.printStackTrace();
+            return route(received, sink);
+        } finally {
+            active.decrementAndGet();
         }
     }
 
-    private void handleClient(final Socket client) {
-        LOG.info("Cliente conectado: {}", client.getInetAddress());
-        try {
-            final var output = new ObjectOutputStream(client.getOutputStream());
-            final var input = new ObjectInputStream(client.getInputStream());
+    @SuppressWarnings("unchecked")
+    private Response<? extends Serializable> route(final Request<? extends Serializable> received,
+            final ResponseSink sink) {
+        final var request = (Request<Order>) received;
+        LOG.info("Executando operação {}...", request.getOperation());
 
-            LOG.info("Aguardando mensagens...");
+        switch (request.getOperation()) {
+            case LOCALIZE:
+                return new Response<>(ResponseStatus.ERROR, "O servidor de Proxy não faz Localização");
 
-            @SuppressWarnings("unchecked")
-            final var request = (Request<Order>) input.readObject();
-            LOG.info("Executando operação {}...", request.getOperation());
+            case LIST:
+                return listFromCache(request);
 
-            final Response<? extends Serializable> response;
-            switch (request.getOperation()) {
-                case LOCALIZE:
-                    response = new Response<>(ResponseStatus.ERROR, "O servidor de Proxy não faz Localização");
-                    break;
+            case COUNT:
+                return countFromCache(request);
 
-                case FIND:
-                    response = getFromCache(request);
-                    break;
+            case LIST_STREAM:
+                // Cada bloco recebido do servidor é repassado ao cliente assim que chega
+                LOG.info("Repassando listagem em blocos...");
+                return shards.stream(request, sink);
 
-                case UPDATE:
-                    response = updateIncludingCache(request);
-                    break;
+            case COUNT_STATUS:
+                // O servidor já responde sem consultar o banco
+                return redirectRequestToServer(request);
 
-                case DELETE:
-                    response = deleteIncludingCache(request);
-                    break;
+            case LIST_PAGE:
+                // O cursor é a posição na listagem geral, válida em qualquer parte
+                return redirectRequestToServer(request);
 
-                default:
-                    response = redirectRequestToServer(request);
-                    break;
-            }
+            case CREATE:
+                return createIncludingCache(request);
 
-            output.writeObject(response);
+            case FIND:
+                return getFromCache(request);
 
-            client.close();
-            LOG.info("Cliente encerrado: {}", client.getInetAddress());
-        } catch (final IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+            case MULTI_FIND:
+                return getAllFromCache((Request<ArrayList<Long>>) received);
+
+            case UPDATE:
+                return updateIncludingCache(request);
+
+            case DELETE:
+                return deleteIncludingCache(request);
+
+            case BATCH_CREATE:
+                return createAllIncludingCache((Request<ArrayList<Order>>) received);
+
+            case BATCH_UPDATE:
+                return updateAllIncludingCache((Request<ArrayList<Order>>) received);
+
+            case BATCH_DELETE:
+                return deleteAllIncludingCache((Request<ArrayList<Order>>) received);
+
+            default:
+                return redirectRequestToServer(request);
         }
     }
 
     private Response<Order> getFromCache(final Request<Order> request) {
         final var result = cacheService.find(request.getItem().getCode(),
                 () -> {
-                    final Response<Order> resp = redirectRequestToServer(request);
-                    if (resp.getStatus() == ResponseStatus.ERROR) {
+                    final Response<Order> resp = readFromPrimary(request);
+                    if (resp.getStatus() == ResponseStatus.NOT_FOUND) {
                         throw new NotFoundException();
+                    } else if (resp.getStatus() != ResponseStatus.OK) {
+                        throw new OperationException(resp.getMessage());
                     }
                     return resp.getItem();
                 });
@@ -126,23 +187,69 @@ public class ProxyService implements Runnable {
         if (result != null) {
             return new Response<>(result, "Ordem encontrada");
         } else {
-            return new Response<>(ResponseStatus.ERROR, "A ordem não existe na base de dados");
+            return new Response<>(ResponseStatus.NOT_FOUND, "A ordem não existe na base de dados");
         }
     }
 
-    private Response<Order> updateIncludingCache(final Request<Order> request) {
-        // Editar na base de dados
-        final Response<Order> response = redirectRequestToServer(request);
+    private Response<ArrayList<Order>> getAllFromCache(final Request<ArrayList<Long>> request) {
+        final var codes = request.getItem() != null ? request.getItem() : new ArrayList<Long>();
+        final var result = cacheService.findAll(codes, missing -> {
+            // Só os códigos fora do cache seguem ao servidor
+            final Response<ArrayList<Order>> response = readFromPrimary(
+                    new Request<>(request.getOperation(), new ArrayList<>(missing)));
+            if (response.getStatus() != ResponseStatus.OK) {
+                throw new OperationException(response.getMessage());
+            }
+            return response.getItem();
+        });
 
-        // Atualizar no cache
-        cacheService.update(request.getItem());
+        return new Response<>(result, result.size() + " ordens encontradas");
+    }
 
-        return response;
+    private Response<ArrayList<Order>> listFromCache(final Request<Order> request) {
+        final var result = listingCache.list(() -> {
+            final Response<ArrayList<Order>> response = redirectRequestToServer(request);
+            if (response.getStatus() != ResponseStatus.OK) {
+                throw new OperationException(response.getMessage());
+            }
+            return response.getItem();
+        });
+
+        return new Response<>(result);
+    }
+
+    private Response<Long> countFromCache(final Request<Order> request) {
+        final var result = listingCache.count(() -> {
+            final Response<Long> response = redirectRequestToServer(request);
+            if (response.getStatus() != ResponseStatus.OK) {
+                throw new OperationException(response.getMessage());
+            }
+            return response.getItem();
+        });
+
+        return new Response<>(result);
+    }
+
+    private Response<Order> createIncludingCache(final Request<Order> request) {
+        // Cadastrar na base de dados
+        return write(request, response -> {
+            // O código recebido deixa de ser dado como inexistente
+            cacheService.created(response.getItem());
+            listingCache.created(response.getItem());
+        });
+    }
+
+    private Response<Order> updateIncludingCache(final Request<Order> request) {
+        // Editar na base de dados e, só se o servidor aceitar, atualizar no cache
+        return write(request, ok -> {
+            listingCache.updated(request.getItem());
+            cacheService.update(request.getItem());
+        });
     }
 
     private Response<Order> deleteIncludingCache(final Request<Order> request) {
         // Remover na base de dados
-        final Response<Order> response = redirectRequestToServer(request);
+        final Response<Order> response = write(request, ok -> listingCache.deleted(request.getItem()));
 
         // Remover no cache
         cacheService.delete(request.getItem());
@@ -150,30 +257,70 @@ public class ProxyService implements Runnable {
         return response;
     }
 
-    private <O extends Serializable> Response<O> redirectRequestToServer(final Request<Order> request) {
-        try (final var socket = new Socket("localhost", Constants.SERVER_PORT)) {
-            LOG.info("Conectado ao servidor");
-            final var output = new ObjectOutputStream(socket.getOutputStream());
-            final var input = new ObjectInputStream(socket.getInputStream());
+    // Lotes são gravados por inteiro ou recusados por inteiro, então os caches
+    // só mudam quando o servidor confirma a escrita
+    private Response<ArrayList<Order>> createAllIncludingCache(final Request<ArrayList<Order>> request) {
+        return write(request, response -> {
+            cacheService.createdAll(response.getItem());
+            listingCache.createdAll(response.getItem());
+        });
+    }
 
-            LOG.info("Enviando requisição...");
-            output.writeObject(request);
-            output.flush();
+    private Response<Long> updateAllIncludingCache(final Request<ArrayList<Order>> request) {
+        return writeAll(request, orders -> {
+            cacheService.updateAll(orders);
+            listingCache.updatedAll(orders);
+        });
+    }
 
-            LOG.info("Aguardando resposta...");
-            @SuppressWarnings("unchecked")
-            final var response = (Response<O>) input.readObject();
+    private Response<Long> deleteAllIncludingCache(final Request<ArrayList<Order>> request) {
+        return writeAll(request, orders -> {
+            cacheService.deleteAll(orders);
+            listingCache.deletedAll(orders);
+        });
+    }
+
+    // Sem resposta do servidor não se sabe se o lote foi gravado, então as
+    // ordens envolvidas deixam o cache
+    private Response<Long> writeAll(final Request<ArrayList<Order>> request, final Consumer<List<Order>> onSuccess) {
+        try {
+            return write(request, ok -> onSuccess.accept(request.getItem()));
+        } catch (final RuntimeException e) {
+            cacheService.deleteAll(request.getItem());
+            throw e;
+        }
+    }
 
-            input.close();
-            output.close();
+    // A listagem e a contagem guardadas são corrigidas conforme o resultado da escrita
+    private <I extends Serializable, O extends Serializable> Response<O> write(final Request<I> request,
+            final Consumer<Response<O>> onSuccess) {
+        listingCache.beginWrite();
 
-            LOG.info("Conexão encerrada");
-            return response;
-        } catch (final IOException e) {
-            throw new ConnectionException(e);
-        } catch (final ClassNotFoundException e) {
-            throw new OperationException("A resposta não pôde ser interpretada", e);
+        final Response<O> response;
+        try {
+            response = redirectRequestToServer(request);
+        } catch (final RuntimeException e) {
+            listingCache.failed();
+            throw e;
         }
+
+        if (response.getStatus() == ResponseStatus.OK) {
+            onSuccess.accept(response);
+        } else {
+            listingCache.rejected();
+        }
+        return response;
+    }
+
+    // O que vai para o cache de ordens não é lido nas réplicas
+    private <O extends Serializable> Response<O> readFromPrimary(final Request<?> request) {
+        LOG.info("Encaminhando busca ao servidor principal...");
+        return shards.callOnPrimary(request);
+    }
+
+    private <O extends Serializable> Response<O> redirectRequestToServer(final Request<?> request) {
+        LOG.info("Encaminhando requisição ao servidor...");
+        return shards.call(request);
     }
 
 }
@@ -1,148 +1,204 @@
 package br.edu.ufersa.cc.sd.services;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
 import br.edu.ufersa.cc.sd.dto.Request;
 import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
 import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
 import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
 import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.ResponseSink;
+import br.edu.ufersa.cc.sd.network.Transport;
+import br.edu.ufersa.cc.sd.replication.Replication;
+import br.edu.ufersa.cc.sd.replication.Replicator;
+import br.edu.ufersa.cc.sd.sharding.Shards;
 import br.edu.ufersa.cc.sd.utils.Constants;
-import lombok.Getter;
 
 public class ServerService implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServerService.class.getSimpleName());
 
-    @Getter
-    private boolean isAlive = true;
-    private ServerSocket serverSocket;
+    // Réplicas só respondem leituras; as escritas vão ao principal
+    private static final Set<Operation> WRITES = EnumSet.of(Operation.CREATE, Operation.UPDATE, Operation.DELETE,
+            Operation.BATCH_CREATE, Operation.BATCH_UPDATE, Operation.BATCH_DELETE);
+
+    // Com várias partes, cada servidor principal escuta na porta da própria parte
+    private final Transport transport = Transport.create("server",
+            Shards.isSharded() && !Replication.isReplica() ? Shards.address(Shards.self()).getPort()
+                    : Constants.SERVER_PORT,
+            this::handle);
     private OrderService orderService = new OrderService();
+    private volatile Replicator replicator;
 
     @Override
     public void run() {
         try {
-            serverSocket = new ServerSocket(Constants.SERVER_PORT);
+            transport.start();
             LOG.info("Servidor iniciado");
-            LOG.info("{}", serverSocket);
-            new Thread(() -> waitForClients(serverSocket)).start();
+            LOG.info("{}", transport);
+
+            if (Replication.isReplica()) {
+                replicator = new Replicator();
+                replicator.start();
+            }
         } catch (final IOException e) {
             e.printStackTrace();
         }
     }
 
     public void stop() {
-        if (serverSocket != null && !serverSocket.isClosed()) {
-            try {
-                serverSocket.close();
-            } catch (final IOException e) {
-                e.printStackTrace();
-            }
+        if (replicator != null) {
+            replicator.close();
+            replicator = null;
         }
 
-        isAlive = false;
-        serverSocket = null;
+        transport.stop();
     }
 
-    private void waitForClients(final ServerSocket serverSocket) {
-        try {
-            while (isAlive) {
-                LOG.info("Aguardando clientes...");
-                final var client = serverSocket.accept();
-                new Thread(() -> handleClient(client)).start();
-            }
-        } catch (final SocketException e) {
-            LOG.info("Servidor encerrado");
-        } catch (final IOException e) {
-            LOG.error("Erro ao aceitar novos clientes", e);
-        }
+    public boolean isAlive() {
+        return transport.isAlive();
     }
 
-    private void handleClient(final Socket client) {
-        LOG.info("Cliente conectado: {}", client.getInetAddress());
+    @SuppressWarnings("unchecked")
+    private Response<? extends Serializable> handle(final Request<? extends Serializable> request,
+            final ResponseSink sink) {
+        final var item = request.getItem();
+        final var order = item instanceof Order ? (Order) item : null;
+        final var orders = item instanceof ArrayList ? (ArrayList<Order>) item : new ArrayList<Order>();
+        final var codes = item instanceof ArrayList ? (ArrayList<Long>) item : new ArrayList<Long>();
+        LOG.info("Executando operação {}...", request.getOperation());
+
+        final var currentReplicator = replicator;
+        if (currentReplicator != null && WRITES.contains(request.getOperation())) {
+            return new Response<>(ResponseStatus.ERROR, "Réplica somente para leitura");
+        }
 
         try {
-            final var output = new ObjectOutputStream(client.getOutputStream());
-            final var input = new ObjectInputStream(client.getInputStream());
-
-            // O servidor não pode receber chamadas externas
-            if (client.getInetAddress().getHostAddress().equals("/127.0.0.1")) {
-                LOG.error("Cliente externo bloqueado: {}", client.getInetAddress());
-                output.writeObject(new Response<>(ResponseStatus.ERROR, "Acesso não autorizado"));
-                client.close();
-                return;
-            }
-
-            LOG.info("Aguardando mensagens...");
-
-            @SuppressWarnings("unchecked")
-            final var request = (Request<Order>) input.readObject();
-            final var order = request.getItem();
-            LOG.info("Executando operação {}...", request.getOperation());
-
-            final Response<? extends Serializable> response;
             switch (request.getOperation()) {
                 case LOCALIZE:
-                    response = new Response<>(ResponseStatus.ERROR, "O servidor de Dados não faz Localização");
-                    break;
+                    return new Response<>(ResponseStatus.ERROR, "O servidor de Dados não faz Localização");
 
                 case LIST:
                     final var list = orderService.listAll();
-                    response = new Response<>(new ArrayList<>(list));
-                    break;
+                    return new Response<>(new ArrayList<>(list));
+
+                case LIST_STREAM:
+                    final var total = orderService
+                            .streamAll(chunk -> sink.send(new Response<>(ResponseStatus.CHUNK, null, chunk)));
+                    return new Response<>(total, "Listagem concluída");
+
+                case LIST_PAGE:
+                    final var page = item instanceof PageRequest ? (PageRequest) item : new PageRequest();
+                    return new Response<>(orderService.listPage(page));
 
                 case CREATE:
                     order.setCode(null);
                     orderService.create(order);
-                    response = new Response<>(ResponseStatus.OK);
-                    break;
+                    return new Response<>(order, "Ordem cadastrada");
 
                 case FIND:
-                    response = tryToFind(order.getCode());
-                    break;
+                    return tryToFind(order.getCode());
 
                 case UPDATE:
                     orderService.update(order);
-                    response = new Response<>(ResponseStatus.OK);
-                    break;
+                    return new Response<>(ResponseStatus.OK);
 
                 case DELETE:
                     orderService.delete(order);
-                    response = new Response<>(ResponseStatus.OK);
-                    break;
+                    return new Response<>(ResponseStatus.OK);
 
                 case COUNT:
-                    response = new Response<>(orderService.countAll());
-                    break;
+                    return new Response<>(orderService.countAll());
+
+                case COUNT_STATUS:
+                    return new Response<>(orderService.countByStatus());
+
+                case MULTI_FIND:
+                    return new Response<>(new ArrayList<>(orderService.findAllByCode(codes)));
+
+                case BATCH_CREATE:
+                    orders.forEach(created -> created.setCode(null));
+                    orderService.createAll(orders);
+                    return new Response<>(orders, orders.size() + " ordens cadastradas");
+
+                case BATCH_UPDATE:
+                    orderService.updateAll(orders);
+                    return new Response<>((long) orders.size(), orders.size() + " ordens atualizadas");
+
+                case BATCH_DELETE:
+                    orderService.deleteAll(orders);
+                    return new Response<>((long) orders.size(), orders.size() + " ordens excluídas");
+
+                case REPLICATE:
+                    if (currentReplicator != null) {
+                        return new Response<>(ResponseStatus.ERROR, "Réplicas não são replicadas");
+                    }
+                    return new Response<>(orderService.changesSince((ReplicaPosition) item));
+
+                case SUBSCRIBE:
+                    if (currentReplicator != null) {
+                        return new Response<>(ResponseStatus.ERROR, "Alterações são publicadas pelo servidor principal");
+                    }
+                    return publishChanges(sink);
+
+                case REPLICA_STATUS:
+                    // O principal está sempre em dia
+                    return new Response<>(currentReplicator != null ? currentReplicator.lag() : 0L);
 
                 default:
-                    response = new Response<>(ResponseStatus.ERROR, "Operação não reconhecida");
+                    return new Response<>(ResponseStatus.ERROR, "Operação não reconhecida");
             }
+        } catch (final OperationException e) {
+            LOG.error("Erro ao executar operação {}", request.getOperation(), e);
+            return new Response<>(ResponseStatus.ERROR, e.getMessage());
+        }
+    }
 
-            output.writeObject(response);
+    // Envia ao proxy, em blocos, os códigos alterados por cada escrita confirmada
+    // daqui em diante, até a conexão cair ou o servidor parar; sem alterações,
+    // um bloco vazio serve de sinal de vida. Um assinante atrasado demais para
+    // o registro recebe um erro e deve descartar o cache inteiro
+    private Response<? extends Serializable> publishChanges(final ResponseSink sink) {
+        LOG.info("Proxy assinou as alterações");
+        var position = Replication.CHANGES.position();
 
-            client.close();
-            LOG.info("Cliente encerrado: {}", client.getInetAddress());
-        } catch (final IOException | ClassNotFoundException e) {
-            LOG.error("Erro ao aceitar novoc clientes", e);
+        try {
+            sink.send(new Response<>(ResponseStatus.CHUNK, null, new ArrayList<Long>()));
+
+            while (transport.isAlive()) {
+                final var window = Replication.CHANGES.await(position, Constants.HEARTBEAT_INTERVAL);
+                if (window.getCodes() == null) {
+                    return new Response<>(ResponseStatus.ERROR, "Alterações perdidas pelo assinante");
+                }
+
+                sink.send(new Response<>(ResponseStatus.CHUNK, null, new ArrayList<>(window.getCodes())));
+                position = new ReplicaPosition(position.getEpoch(), window.getSequence());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ConnectionException e) {
+            LOG.info("Assinatura de alterações encerrada");
         }
+        return new Response<>(ResponseStatus.OK, "Assinatura encerrada");
     }
 
     private Response<Order> tryToFind(final Long code) {
         try {
             return new Response<>(orderService.findByCode(code));
         } catch (NotFoundException e) {
-            return new Response<>(ResponseStatus.ERROR, "Ordem não encontrada");
+            return new Response<>(ResponseStatus.NOT_FOUND, "Ordem não encontrada");
         }
     }
 
@@ -0,0 +1,53 @@
+package br.edu.ufersa.cc.sd.sharding;
+
+import java.util.TreeMap;
+
+// Anel de hash consistente: cada parte ocupa vários pontos do anel e um código
+// pertence à primeira parte encontrada a partir do hash dele. Os pontos
+// dependem só do número da parte, não do endereço, então mover uma parte de
+// máquina não muda a divisão dos códigos
+public class HashRing {
+
+    private static final Integer VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final Integer size;
+
+    public HashRing(final Integer size) {
+        this.size = size;
+
+        // Os pontos ficam fora da faixa dos códigos: com a parte 0 na metade de
+        // baixo, o ponto dela coincidia com o hash do código de mesmo valor e
+        // os primeiros códigos iam todos para ela
+        for (int shard = 0; shard < size; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring.put(mix(((long) (shard + 1) << 32) | node), shard);
+            }
+        }
+    }
+
+    public int owner(final long code) {
+        if (size == 1) {
+            return 0;
+        }
+
+        final var entry = ring.ceilingEntry(mix(code));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    // Finalização do MurmurHash3: códigos sequenciais se espalham pelo anel inteiro
+    private static long mix(final long value) {
+        var hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,428 @@
+package br.edu.ufersa.cc.sd.sharding;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
+import br.edu.ufersa.cc.sd.dto.Page;
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.ResponseSink;
+import br.edu.ufersa.cc.sd.network.UpstreamChannel;
+import br.edu.ufersa.cc.sd.replication.ReplicaSet;
+import br.edu.ufersa.cc.sd.replication.Replication;
+import br.edu.ufersa.cc.sd.services.OrderService;
+import br.edu.ufersa.cc.sd.utils.Constants;
+import br.edu.ufersa.cc.sd.utils.Cursors;
+
+// Encaminha cada requisição à parte dona dos códigos envolvidos. Operações
+// sobre todas as ordens são enviadas às partes ao mesmo tempo e os resultados
+// são juntados na ordem da listagem; se alguma parte falhar, a operação
+// inteira falha. Escritas vão ao servidor principal da parte e leituras
+// podem ser atendidas pelas réplicas dela
+public class ShardRouter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardRouter.class.getSimpleName());
+
+    private static final Set<Operation> READS = EnumSet.of(Operation.FIND, Operation.LIST, Operation.COUNT,
+            Operation.COUNT_STATUS, Operation.LIST_PAGE, Operation.MULTI_FIND);
+
+    private final HashRing ring;
+    private final UpstreamChannel[] channels;
+    private final ReplicaSet[] readers;
+
+    // Cadastros não têm código ainda, então são distribuídos em rodízio
+    private final AtomicInteger nextCreate = new AtomicInteger();
+
+    public ShardRouter(final Integer connections) {
+        this(Constants.SHARDS.stream().map(Shards::parse).collect(Collectors.toList()), connections);
+
+        if (Shards.isSharded()) {
+            LOG.info("Dados divididos em {} partes: {}", channels.length, Constants.SHARDS);
+        }
+    }
+
+    // Partes informadas diretamente; o anel depende só da quantidade delas,
+    // então a divisão dos códigos é a mesma dos servidores
+    ShardRouter(final List<InetSocketAddress> shards, final Integer connections) {
+        ring = new HashRing(shards.size());
+        channels = new UpstreamChannel[shards.size()];
+        readers = new ReplicaSet[channels.length];
+        for (int shard = 0; shard < channels.length; shard++) {
+            final var address = shards.get(shard);
+            channels[shard] = new UpstreamChannel(address.getHostString(), address.getPort(), connections);
+            readers[shard] = new ReplicaSet(shard, channels[shard], Replication.replicasOf(shard), connections);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <O extends Serializable> Response<O> call(final Request<? extends Serializable> request) {
+        if (channels.length == 1) {
+            return READS.contains(request.getOperation()) ? read(0, request) : channels[0].call(request);
+        }
+
+        switch (request.getOperation()) {
+            case FIND:
+                return read(ownerOf((Order) request.getItem()), request);
+
+            case UPDATE:
+            case DELETE:
+                return channels[ownerOf((Order) request.getItem())].call(request);
+
+            case CREATE:
+            case BATCH_CREATE:
+                // O lote inteiro vai para uma só parte e continua atômico
+                return channels[Math.floorMod(nextCreate.getAndIncrement(), channels.length)].call(request);
+
+            case LIST:
+                return (Response<O>) list(request);
+
+            case COUNT:
+                return (Response<O>) count(request);
+
+            case COUNT_STATUS:
+                return (Response<O>) countByStatus(request);
+
+            case LIST_PAGE:
+                return (Response<O>) listPage((Request<PageRequest>) request);
+
+            case MULTI_FIND:
+                return (Response<O>) findAll((Request<ArrayList<Long>>) request, true);
+
+            case BATCH_UPDATE:
+            case BATCH_DELETE:
+                return (Response<O>) writeAll((Request<ArrayList<Order>>) request);
+
+            default:
+                return channels[0].call(request);
+        }
+    }
+
+    // Junta as listagens das partes aos poucos, pedindo páginas a cada uma e
+    // repassando sempre a próxima ordem entre as primeiras de cada parte
+    @SuppressWarnings("unchecked")
+    public <O extends Serializable> Response<O> stream(final Request<? extends Serializable> request,
+            final ResponseSink sink) {
+        if (channels.length == 1) {
+            return channels[0].stream(request, sink);
+        }
+
+        final var size = Math.min(Constants.STREAM_CHUNK, Constants.MAX_PAGE_SIZE);
+        final var buffers = new ArrayList<ArrayDeque<Order>>(channels.length);
+        final var cursors = new String[channels.length];
+
+        final var first = gather(true, shard -> new Request<>(Operation.LIST_PAGE, new PageRequest(size, null)));
+        final var failure = failureOf(first);
+        if (failure != null) {
+            return (Response<O>) failure;
+        }
+        for (int shard = 0; shard < channels.length; shard++) {
+            final var page = (Page) first.get(shard).getItem();
+            buffers.add(new ArrayDeque<>(page.getItems()));
+            cursors[shard] = page.getNext();
+        }
+
+        var total = 0L;
+        var chunk = new ArrayList<Order>(size);
+        while (true) {
+            var chosen = -1;
+            for (int shard = 0; shard < channels.length; shard++) {
+                final var head = buffers.get(shard).peek();
+                if (head != null && (chosen < 0
+                        || Order.LISTING_ORDER.compare(head, buffers.get(chosen).peek()) < 0)) {
+                    chosen = shard;
+                }
+            }
+            if (chosen < 0) {
+                break;
+            }
+
+            chunk.add(buffers.get(chosen).poll());
+            total++;
+            if (chunk.size() >= size) {
+                sink.send(new Response<>(ResponseStatus.CHUNK, null, chunk));
+                chunk = new ArrayList<>(size);
+            }
+
+            // A parte só é consultada de novo quando as ordens dela acabam
+            if (buffers.get(chosen).isEmpty() && cursors[chosen] != null) {
+                final var page = nextPage(chosen, size, cursors[chosen]);
+                buffers.get(chosen).addAll(page.getItems());
+                cursors[chosen] = page.getNext();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            sink.send(new Response<>(ResponseStatus.CHUNK, null, chunk));
+        }
+        return (Response<O>) new Response<>(total, "Listagem concluída");
+    }
+
+    @Override
+    public void close() {
+        for (int shard = 0; shard < channels.length; shard++) {
+            readers[shard].close();
+            channels[shard].close();
+        }
+    }
+
+    private Response<? extends Serializable> list(final Request<? extends Serializable> request) {
+        final var responses = gather(true, shard -> copy(request));
+        final var failure = failureOf(responses);
+        if (failure != null) {
+            return failure;
+        }
+
+        // Cada parte já vem ordenada; a ordenação só intercala as sequências
+        final var result = new ArrayList<Order>();
+        responses.forEach(response -> result.addAll(orders(response)));
+        result.sort(Order.LISTING_ORDER);
+
+        return new Response<>(result);
+    }
+
+    private Response<? extends Serializable> count(final Request<? extends Serializable> request) {
+        final var responses = gather(true, shard -> copy(request));
+        final var failure = failureOf(responses);
+        if (failure != null) {
+            return failure;
+        }
+
+        var total = 0L;
+        for (final var response : responses) {
+            total += (Long) response.getItem();
+        }
+        return new Response<>(total);
+    }
+
+    private Response<? extends Serializable> countByStatus(final Request<? extends Serializable> request) {
+        final var responses = gather(true, shard -> copy(request));
+        final var failure = failureOf(responses);
+        if (failure != null) {
+            return failure;
+        }
+
+        final var counts = new OrderCounts(0L, 0L, 0L);
+        for (final var response : responses) {
+            final var part = (OrderCounts) response.getItem();
+            counts.setTotal(counts.getTotal() + part.getTotal());
+            counts.setDone(counts.getDone() + part.getDone());
+            counts.setPending(counts.getPending() + part.getPending());
+        }
+        return new Response<>(counts);
+    }
+
+    // O cursor é a posição na listagem geral, então vale igualmente para todas
+    // as partes: cada uma devolve sua página a partir dele e as maiores são
+    // escolhidas entre todas
+    private Response<? extends Serializable> listPage(final Request<PageRequest> request) {
+        final var page = request.getItem() != null ? request.getItem() : new PageRequest();
+        final var size = OrderService.pageSize(page);
+
+        final var responses = gather(true, shard -> new Request<>(Operation.LIST_PAGE, new PageRequest(size, page.getCursor())));
+        final var failure = failureOf(responses);
+        if (failure != null) {
+            return failure;
+        }
+
+        final var merged = new ArrayList<Order>();
+        var more = false;
+        for (final var response : responses) {
+            final var part = (Page) response.getItem();
+            merged.addAll(part.getItems());
+            more |= part.getNext() != null;
+        }
+        merged.sort(Order.LISTING_ORDER);
+
+        if (merged.size() > size) {
+            merged.subList(size, merged.size()).clear();
+            more = true;
+        }
+        final var next = more && !merged.isEmpty() ? Cursors.encode(merged.get(merged.size() - 1)) : null;
+
+        return new Response<>(new Page(merged, next));
+    }
+
+    // Buscas cujo resultado o proxy guarda no cache sem prazo de validade: vão
+    // ao servidor principal da parte, pois uma réplica atrasada devolveria a
+    // ordem antiga e ela ficaria no cache até a próxima alteração
+    @SuppressWarnings("unchecked")
+    public <O extends Serializable> Response<O> callOnPrimary(final Request<? extends Serializable> request) {
+        switch (request.getOperation()) {
+            case FIND:
+                return channels[ownerOf((Order) request.getItem())].call(request);
+
+            case MULTI_FIND:
+                return (Response<O>) findAll((Request<ArrayList<Long>>) request, false);
+
+            default:
+                return call(request);
+        }
+    }
+
+    // Estado atual das ordens lido nos servidores principais, sem passar pelas
+    // réplicas, que podem ainda não ter as últimas alterações
+    public List<Order> findAllOnPrimaries(final List<Long> codes) {
+        final var response = findAll(new Request<>(Operation.MULTI_FIND, new ArrayList<>(codes)), false);
+        if (response.getStatus() != ResponseStatus.OK) {
+            throw new OperationException(response.getMessage());
+        }
+        return orders(response);
+    }
+
+    private Response<? extends Serializable> findAll(final Request<ArrayList<Long>> request, final boolean reads) {
+        final var groups = groups(channels.length);
+        if (request.getItem() != null) {
+            request.getItem().forEach(code -> groups.get(ring.owner(code)).add(code));
+        }
+
+        final var responses = gather(reads, shard -> groups.get(shard).isEmpty() ? null
+                : new Request<>(Operation.MULTI_FIND, groups.get(shard)));
+        final var failure = failureOf(responses);
+        if (failure != null) {
+            return failure;
+        }
+
+        final var result = new ArrayList<Order>();
+        responses.forEach(response -> result.addAll(orders(response)));
+        return new Response<>(result);
+    }
+
+    // Cada parte grava seu pedaço do lote numa transação própria: se só
+    // algumas confirmarem, o lote ficou pela metade e a falha é lançada como
+    // exceção, para que quem chamou trate o resultado como desconhecido
+    private Response<? extends Serializable> writeAll(final Request<ArrayList<Order>> request) {
+        final ArrayList<ArrayList<Order>> groups = groups(channels.length);
+        if (request.getItem() != null) {
+            request.getItem().forEach(order -> groups.get(ownerOf(order)).add(order));
+        }
+
+        final var responses = gather(false, shard -> groups.get(shard).isEmpty() ? null
+                : new Request<>(request.getOperation(), groups.get(shard)));
+
+        var total = 0L;
+        var confirmed = 0;
+        Response<? extends Serializable> failure = null;
+        for (final var response : responses) {
+            if (response == null) {
+                continue;
+            }
+            if (response.getStatus() == ResponseStatus.OK) {
+                total += (Long) response.getItem();
+                confirmed++;
+            } else if (failure == null) {
+                failure = response;
+            }
+        }
+
+        if (failure == null) {
+            return new Response<>(total);
+        }
+        if (confirmed > 0) {
+            throw new OperationException("Lote gravado só em parte: " + failure.getMessage());
+        }
+        return failure;
+    }
+
+    // Envia as requisições a todas as partes antes de esperar qualquer
+    // resposta; partes sem requisição ficam com resposta nula
+    private List<Response<? extends Serializable>> gather(final boolean reads, final ShardRequest requests) {
+        final var sent = new ArrayList<Request<? extends Serializable>>(channels.length);
+        final var futures = new ArrayList<CompletableFuture<Response<Serializable>>>(channels.length);
+        for (int shard = 0; shard < channels.length; shard++) {
+            final var request = requests.of(shard);
+            sent.add(request);
+            if (request == null) {
+                futures.add(null);
+            } else {
+                futures.add(reads ? readers[shard].read(request) : channels[shard].send(request));
+            }
+        }
+
+        final var responses = new ArrayList<Response<? extends Serializable>>(channels.length);
+        for (int shard = 0; shard < channels.length; shard++) {
+            if (futures.get(shard) == null) {
+                responses.add(null);
+                continue;
+            }
+
+            Response<? extends Serializable> response = UpstreamChannel.await(futures.get(shard));
+            if (response.getStatus() == ResponseStatus.OVERLOADED) {
+                // A recusa não executou nada; repete com a espera entre tentativas do canal
+                response = channels[shard].call(sent.get(shard));
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    // Leitura numa parte; recusas por sobrecarga são repetidas no principal,
+    // com a espera entre tentativas do canal
+    private <O extends Serializable> Response<O> read(final int shard, final Request<? extends Serializable> request) {
+        final Response<O> response = UpstreamChannel.await(readers[shard].read(request));
+        return response.getStatus() == ResponseStatus.OVERLOADED ? channels[shard].call(request) : response;
+    }
+
+    private Page nextPage(final int shard, final int size, final String cursor) {
+        final Response<Page> response = read(shard, new Request<>(Operation.LIST_PAGE, new PageRequest(size, cursor)));
+        if (response.getStatus() != ResponseStatus.OK) {
+            throw new OperationException(response.getMessage());
+        }
+        return response.getItem();
+    }
+
+    private static Response<? extends Serializable> failureOf(final List<Response<? extends Serializable>> responses) {
+        return responses.stream()
+                .filter(response -> response != null && response.getStatus() != ResponseStatus.OK)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Cada parte recebe a própria cópia, pois o envio marca a requisição com um identificador
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Request<? extends Serializable> copy(final Request<? extends Serializable> request) {
+        return request.getItem() != null
+                ? new Request<>(request.getOperation(), request.getItem())
+                : new Request(request.getOperation(), request.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Order> orders(final Response<? extends Serializable> response) {
+        return response != null ? (List<Order>) response.getItem() : List.of();
+    }
+
+    private int ownerOf(final Order order) {
+        return order != null && order.getCode() != null ? ring.owner(order.getCode()) : 0;
+    }
+
+    private static <T> ArrayList<ArrayList<T>> groups(final int count) {
+        final var groups = new ArrayList<ArrayList<T>>(count);
+        for (int i = 0; i < count; i++) {
+            groups.add(new ArrayList<>());
+        }
+        return groups;
+    }
+
+    @FunctionalInterface
+    private interface ShardRequest {
+        Request<? extends Serializable> of(int shard);
+    }
+
+}
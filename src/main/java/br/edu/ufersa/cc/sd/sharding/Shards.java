@@ -0,0 +1,44 @@
+package br.edu.ufersa.cc.sd.sharding;
+
+import java.net.InetSocketAddress;
+
+import br.edu.ufersa.cc.sd.utils.Constants;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Partes do servidor de dados, na ordem de orders.shards. Proxies e
+// servidores precisam receber a mesma lista para concordar sobre o dono de
+// cada código
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Shards {
+
+    public static final HashRing RING = new HashRing(Constants.SHARDS.size());
+
+    public static boolean isSharded() {
+        return RING.getSize() > 1;
+    }
+
+    public static InetSocketAddress address(final int shard) {
+        return parse(Constants.SHARDS.get(shard));
+    }
+
+    // Endereço no formato host:porta usado nas listas de servidores
+    public static InetSocketAddress parse(final String entry) {
+        final var separator = entry.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Endereço sem porta: " + entry);
+        }
+
+        return InetSocketAddress.createUnresolved(entry.substring(0, separator),
+                Integer.parseInt(entry.substring(separator + 1)));
+    }
+
+    // Parte atendida por este processo, quando ele é um servidor de dados
+    public static int self() {
+        if (Constants.SHARD < 0 || Constants.SHARD >= RING.getSize()) {
+            throw new IllegalArgumentException("orders.shard deve estar entre 0 e " + (RING.getSize() - 1));
+        }
+        return Constants.SHARD;
+    }
+
+}
@@ -2,7 +2,13 @@ package br.edu.ufersa.cc.sd.utils;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import br.edu.ufersa.cc.sd.enums.EvictionMode;
+import br.edu.ufersa.cc.sd.enums.TransportMode;
+import br.edu.ufersa.cc.sd.enums.WireFormat;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
@@ -10,9 +16,130 @@ import lombok.NoArgsConstructor;
 public abstract class Constants {
 
     public static final String DEFAULT_HOST = getDefaultHost();
-    public static final Integer LOCALIZATION_PORT = 8484;
-    public static final Integer PROXY_PORT = 8485;
-    public static final Integer SERVER_PORT = 8486;
+
+    // Portas dos três servidores; vários proxies na mesma máquina precisam de portas diferentes
+    public static final Integer LOCALIZATION_PORT = Integer.getInteger("orders.localization.port", 8484);
+    public static final Integer PROXY_PORT = Integer.getInteger("orders.proxy.port", 8485);
+    public static final Integer SERVER_PORT = Integer.getInteger("orders.server.port", 8486);
+
+    // Onde cada servidor encontra os demais e o endereço que o proxy anuncia aos clientes
+    public static final String LOCALIZATION_HOST = System.getProperty("orders.localization.host", "localhost");
+    public static final String SERVER_HOST = System.getProperty("orders.server.host", "localhost");
+    public static final String PROXY_HOST = System.getProperty("orders.proxy.host", DEFAULT_HOST);
+
+    // Partes do servidor de dados (host:porta, separados por vírgula), cada uma
+    // dona de uma faixa do anel de códigos, e a parte atendida por este processo
+    public static final List<String> SHARDS = Arrays
+            .stream(System.getProperty("orders.shards", SERVER_HOST + ":" + SERVER_PORT).split(","))
+            .map(String::trim)
+            .filter(shard -> !shard.isEmpty())
+            .collect(Collectors.toList());
+    public static final Integer SHARD = Integer.getInteger("orders.shard", 0);
+
+    // Replicação: servidor principal (host:porta) de quem este servidor de
+    // dados é réplica, intervalo (ms) entre as buscas de alterações,
+    // quantidade de alterações guardadas pelo principal para as réplicas e
+    // ordens por parte quando a base inteira é copiada
+    public static final String REPLICA_OF = System.getProperty("orders.replica.of", "").trim();
+    public static final Integer REPLICATION_INTERVAL = Integer.getInteger("orders.replication.interval", 100);
+    public static final Integer REPLICATION_LOG = Integer.getInteger("orders.replication.log", 10_000);
+    public static final Integer REPLICATION_PAGE = Integer.getInteger("orders.replication.page", 1_000);
+
+    // Réplicas consultadas pelo proxy (host:porta, separadas por vírgula; com
+    // várias partes, um grupo por parte separado por ponto e vírgula), defasagem
+    // máxima (ms) aceita numa leitura, intervalo (ms) entre as verificações e o
+    // percentil da latência a partir do qual a leitura é repetida noutro servidor
+    public static final List<List<String>> REPLICAS = Arrays
+            .stream(System.getProperty("orders.replicas", "").split(";"))
+            .map(group -> Arrays.stream(group.split(","))
+                    .map(String::trim)
+                    .filter(replica -> !replica.isEmpty())
+                    .collect(Collectors.toList()))
+            .collect(Collectors.toList());
+    public static final Integer REPLICA_STALENESS = Integer.getInteger("orders.replica.staleness", 1_000);
+    public static final Integer REPLICA_CHECK = Integer.getInteger("orders.replica.check", 250);
+    public static final Integer HEDGE_PERCENTILE = Integer.getInteger("orders.hedge.percentile", 95);
+
+    // Registro de proxies: intervalo (ms) entre sinais de vida, prazo (ms) sem
+    // sinal até o proxy deixar de ser indicado e validade (ms) da lista entregue aos clientes
+    public static final Integer HEARTBEAT_INTERVAL = Integer.getInteger("orders.registry.heartbeat", 1_000);
+    public static final Integer REGISTRY_TTL = Integer.getInteger("orders.registry.ttl", 3_000);
+    public static final Integer LEASE_TTL = Integer.getInteger("orders.registry.lease", 5_000);
+
+    // Cliente (OrdersClient): conexões persistentes com cada proxy, tempo
+    // máximo (ms) de espera por resposta e novas tentativas, com espera
+    // inicial (ms) dobrada a cada uma
+    public static final Integer CLIENT_CONNECTIONS = Integer.getInteger("orders.client.connections", 2);
+    public static final Integer CLIENT_TIMEOUT = Integer.getInteger("orders.client.timeout", 10_000);
+    public static final Integer CLIENT_RETRIES = Integer.getInteger("orders.client.retries", 3);
+    public static final Integer CLIENT_BACKOFF = Integer.getInteger("orders.client.backoff", 50);
+
+    // Conexões persistentes mantidas pelo proxy com o servidor de dados
+    public static final Integer UPSTREAM_CONNECTIONS = Integer.getInteger("orders.upstream.connections", 4);
+    public static final Integer UPSTREAM_TIMEOUT = Integer.getInteger("orders.upstream.timeout", 10_000);
+
+    // Novas tentativas quando o servidor responde OVERLOADED, com espera
+    // inicial (ms) dobrada a cada tentativa
+    public static final Integer UPSTREAM_RETRIES = Integer.getInteger("orders.upstream.retries", 3);
+    public static final Integer UPSTREAM_BACKOFF = Integer.getInteger("orders.upstream.backoff", 20);
+
+    // Modelo de atendimento das conexões nos três servidores
+    public static final TransportMode TRANSPORT = TransportMode
+            .valueOf(System.getProperty("orders.transport", TransportMode.THREAD.name()).toUpperCase());
+    public static final Integer ACCEPTORS = Integer.getInteger("orders.acceptors", 1);
+    public static final Integer IO_THREADS = Integer.getInteger("orders.io.threads",
+            Runtime.getRuntime().availableProcessors());
+    public static final Integer WORKERS = Integer.getInteger("orders.workers", 32);
+    public static final Integer WORKER_QUEUE = Integer.getInteger("orders.workers.queue", 1024);
+    public static final Integer SUBSCRIPTIONS = Integer.getInteger("orders.subscriptions", 64);
+    public static final Integer MAX_CONNECTIONS = Integer.getInteger("orders.connections.max", 1024);
+    public static final Integer MAX_IN_FLIGHT = Integer.getInteger("orders.connection.inflight", 64);
+
+    // Limites de uma conexão mantida aberta entre requisições (0 desativa o limite)
+    public static final Integer SESSION_IDLE_TIMEOUT = Integer.getInteger("orders.session.idle", 60_000);
+    public static final Integer SESSION_MAX_REQUESTS = Integer.getInteger("orders.session.requests", 10_000);
+    public static final Integer MAX_FRAME_SIZE = Integer.getInteger("orders.frame.max", 16 * 1024 * 1024);
+
+    // Formato proposto pelos clientes do protocolo em quadros
+    public static final WireFormat WIRE_FORMAT = WireFormat
+            .valueOf(System.getProperty("orders.wire.format", WireFormat.BINARY.name()).toUpperCase());
+
+    // Conexões com o banco abertas pelo servidor de dados e comandos preparados guardados em cada uma
+    public static final Integer JDBC_POOL_SIZE = Integer.getInteger("orders.jdbc.pool",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    public static final Integer JDBC_STATEMENTS = Integer.getInteger("orders.jdbc.statements", 32);
+    public static final Integer JDBC_POOL_TIMEOUT = Integer.getInteger("orders.jdbc.pool.timeout", 5_000);
+    public static final Integer JDBC_BATCH_SIZE = Integer.getInteger("orders.jdbc.batch", 500);
+
+    // Escritas simultâneas gravadas juntas numa só transação: espera (ms) por
+    // outras escritas depois da primeira e tamanho máximo do grupo (0 desativa)
+    public static final Integer GROUP_COMMIT_WINDOW = Integer.getInteger("orders.commit.window", 0);
+    public static final Integer GROUP_COMMIT_MAX = Integer.getInteger("orders.commit.max", 256);
+
+    // Tamanho das páginas da listagem paginada
+    public static final Integer PAGE_SIZE = Integer.getInteger("orders.page.size", 50);
+    public static final Integer MAX_PAGE_SIZE = Integer.getInteger("orders.page.max", 1_000);
+
+    // Ordens por bloco na listagem transmitida aos poucos; cada bloco é uma
+    // consulta própria, com a conexão devolvida ao pool antes da entrega
+    public static final Integer STREAM_CHUNK = Integer.getInteger("orders.stream.chunk", 256);
+
+    // Cache de ordens mantido pelo proxy
+    public static final Integer CACHE_CAPACITY = Integer.getInteger("orders.cache.capacity", 30);
+    public static final EvictionMode EVICTION = EvictionMode
+            .valueOf(System.getProperty("orders.cache.eviction", EvictionMode.TINY_LFU.name()).toUpperCase());
+
+    // Códigos inexistentes lembrados pelo proxy (0 desativa)
+    public static final Integer NEGATIVE_CACHE_CAPACITY = Integer.getInteger("orders.cache.negative.capacity", 1024);
+    public static final Integer NEGATIVE_CACHE_TTL = Integer.getInteger("orders.cache.negative.ttl", 5_000);
+
+    // Validade da listagem e da contagem guardadas pelo proxy (0 desativa)
+    public static final Integer LISTING_CACHE_TTL = Integer.getInteger("orders.cache.listing.ttl", 5_000);
+
+    // Proxies acompanham as alterações dos servidores de dados e descartam do
+    // cache as ordens alteradas por outros proxies
+    public static final Boolean CACHE_INVALIDATION = Boolean
+            .parseBoolean(System.getProperty("orders.cache.invalidation", "true"));
 
     private static final String getDefaultHost() {
         try {
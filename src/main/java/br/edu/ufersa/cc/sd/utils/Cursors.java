@@ -0,0 +1,52 @@
+package br.edu.ufersa.cc.sd.utils;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Cursor opaco de paginação: a data de cadastro (em milissegundos, a precisão
+// com que é gravada) e o código da última ordem entregue, codificados em
+// Base64 para uso em URLs
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Cursors {
+
+    private static final byte VERSION = 1;
+    private static final Integer SIZE = 1 + Long.BYTES * 2;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static String encode(final Order last) {
+        final var buffer = ByteBuffer.allocate(SIZE)
+                .put(VERSION)
+                .putLong(last.getCreatedAt().atZone(ZONE).toInstant().toEpochMilli())
+                .putLong(last.getCode());
+
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    // Retorna uma ordem contendo apenas a data de cadastro e o código
+    public static Order decode(final String cursor) {
+        try {
+            final var buffer = ByteBuffer.wrap(DECODER.decode(cursor));
+            if (buffer.remaining() != SIZE || buffer.get() != VERSION) {
+                throw new OperationException("Cursor inválido");
+            }
+
+            return new Order()
+                    .setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZONE))
+                    .setCode(buffer.getLong());
+        } catch (final IllegalArgumentException e) {
+            throw new OperationException("Cursor inválido", e);
+        }
+    }
+
+}
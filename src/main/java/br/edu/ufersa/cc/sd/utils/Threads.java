@@ -0,0 +1,40 @@
+package br.edu.ufersa.cc.sd.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import br.edu.ufersa.cc.sd.enums.TransportMode;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public abstract class Threads {
+
+    // Uma thread nova para cada conexão, virtual ou do sistema conforme o modo
+    public static Executor perConnection() {
+        if (Constants.TRANSPORT == TransportMode.VIRTUAL) {
+            return newVirtualThreadPerTaskExecutor();
+        }
+        return task -> new Thread(task).start();
+    }
+
+    // Threads que executam as requisições; no modo virtual cada requisição
+    // admitida ganha a própria thread e o limite fica só com as vagas
+    public static ExecutorService workers() {
+        if (Constants.TRANSPORT == TransportMode.VIRTUAL) {
+            return newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newFixedThreadPool(Constants.WORKERS);
+    }
+
+    // Obtido por reflexão para que o projeto continue compilando para Java 11
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("O modo " + TransportMode.VIRTUAL + " exige Java 21 ou superior", e);
+        }
+    }
+
+}
@@ -0,0 +1,7 @@
+create table if not exists orders (
+    code BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255),
+    description VARCHAR(255),
+    created_at TIMESTAMP,
+    done_at TIMESTAMP
+);
@@ -0,0 +1,5 @@
+-- Mesma ordem da listagem: percorre o índice em vez de ordenar a tabela inteira
+create index if not exists orders_created_at_code on orders (created_at desc, code desc);
+
+-- Filtros de ordens pendentes (done_at nulo) e concluídas
+create index if not exists orders_done_at on orders (done_at);
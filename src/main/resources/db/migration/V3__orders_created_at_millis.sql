@@ -0,0 +1,2 @@
+-- Data de cadastro em milissegundos, a precisão do cursor de paginação
+alter table orders alter column created_at set data type timestamp(3);
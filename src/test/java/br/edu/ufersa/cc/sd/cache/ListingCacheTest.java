@@ -0,0 +1,111 @@
+package br.edu.ufersa.cc.sd.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.models.Order;
+
+// Alterações anunciadas pelo servidor corrigem só as ordens envolvidas: as
+// escritas do próprio proxy não descartam a listagem guardada
+class ListingCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private ListingCache cache;
+    private ArrayList<Order> stored;
+
+    @BeforeEach
+    void fill() {
+        cache = new ListingCache(60_000);
+        stored = new ArrayList<>(List.of(order(3L, "c"), order(2L, "b"), order(1L, "a")));
+        cache.list(this::fetchList);
+        cache.count(() -> {
+            fetches.incrementAndGet();
+            return 3L;
+        });
+        fetches.set(0);
+    }
+
+    @Test
+    void ownWriteEchoKeepsListing() {
+        cache.beginWrite();
+        cache.updated(order(2L, "b2"));
+
+        cache.changed(List.of(2L), () -> List.of(order(2L, "b2")));
+
+        assertEquals(List.of("c", "b2", "a"), names(cache.list(this::fetchList)));
+        assertEquals(3L, cache.count(() -> 0L));
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    void foreignChangesArePatched() {
+        // 4 cadastrada, 1 excluída e 3 editada em outro proxy
+        cache.changed(List.of(1L, 3L, 4L), () -> List.of(order(3L, "c2"), order(4L, "d")));
+
+        assertEquals(List.of("d", "c2", "b"), names(cache.list(this::fetchList)));
+        assertEquals(3L, cache.count(() -> 0L));
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    void countAloneIsDropped() {
+        final var counts = new ListingCache(60_000);
+        counts.count(() -> 3L);
+
+        counts.changed(List.of(4L), () -> List.of(order(4L, "d")));
+
+        assertEquals(4L, counts.count(() -> 4L));
+    }
+
+    @Test
+    void failedFetchDropsListing() {
+        final Supplier<List<Order>> failing = () -> {
+            throw new IllegalStateException("sem resposta");
+        };
+        assertThrows(IllegalStateException.class, () -> cache.changed(List.of(2L), failing));
+
+        cache.list(this::fetchList);
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void listingFetchedDuringChangeIsNotStored() {
+        final var counts = new ListingCache(60_000);
+        counts.count(() -> 3L);
+
+        // A listagem buscada enquanto a alteração é relida pode não refleti-la
+        counts.changed(List.of(2L), () -> {
+            counts.list(this::fetchList);
+            return List.of(order(2L, "b"));
+        });
+
+        counts.list(this::fetchList);
+        assertEquals(2, fetches.get());
+    }
+
+    private ArrayList<Order> fetchList() {
+        fetches.incrementAndGet();
+        return stored;
+    }
+
+    private static Order order(final Long code, final String name) {
+        return new Order().setCode(code).setName(name).setCreatedAt(START.plusSeconds(code));
+    }
+
+    private static List<String> names(final List<Order> orders) {
+        return orders.stream().map(Order::getName).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,228 @@
+package br.edu.ufersa.cc.sd.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.dto.Lease;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.ConnectionException;
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.Frames;
+import br.edu.ufersa.cc.sd.network.Transport;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// O cliente troca de proxy quando um deles não aceita a conexão ou recusa a
+// requisição por sobrecarga; uma requisição que saiu e ficou sem resposta só
+// é repetida se repeti-la não muda o resultado. Localização e proxies aqui
+// são servidores falsos que só registram o que receberam
+class OrdersClientTest {
+
+    private static final int LOCALIZATION_PORT = 19_921;
+    private static final InetSocketAddress WORKING = address(19_922);
+    private static final InetSocketAddress BUSY = address(19_923);
+    private static final InetSocketAddress DROPPING = address(19_924);
+
+    // Porta em que nada escuta
+    private static final InetSocketAddress UNREACHABLE = address(19_929);
+
+    private static final List<Operation> WORKING_RECEIVED = new CopyOnWriteArrayList<>();
+    private static final List<Operation> BUSY_RECEIVED = new CopyOnWriteArrayList<>();
+    private static final List<Operation> DROPPING_RECEIVED = new CopyOnWriteArrayList<>();
+
+    // Listas entregues pela localização, uma por consulta; a última se repete
+    private static final Deque<List<InetSocketAddress>> LEASES = new ArrayDeque<>();
+    private static final AtomicInteger LOCALIZATIONS = new AtomicInteger();
+
+    private static final List<Transport> SERVERS = new ArrayList<>();
+    private static ServerSocket dropping;
+
+    private OrdersClient client;
+
+    @BeforeAll
+    static void startServers() throws IOException {
+        SERVERS.add(Transport.create("localization", LOCALIZATION_PORT, (request, sink) -> lease()));
+        SERVERS.add(Transport.create("working", WORKING.getPort(), (request, sink) -> answer(request)));
+        SERVERS.add(Transport.create("busy", BUSY.getPort(), (request, sink) -> {
+            BUSY_RECEIVED.add(request.getOperation());
+            return new Response<>(ResponseStatus.OVERLOADED, "Proxy sobrecarregado");
+        }));
+        for (final var server : SERVERS) {
+            server.start();
+        }
+
+        dropping = new ServerSocket(DROPPING.getPort());
+        final var acceptor = new Thread(OrdersClientTest::dropEveryRequest, "dropping-proxy");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        SERVERS.forEach(Transport::stop);
+        dropping.close();
+    }
+
+    @BeforeEach
+    void open() {
+        WORKING_RECEIVED.clear();
+        BUSY_RECEIVED.clear();
+        DROPPING_RECEIVED.clear();
+        LOCALIZATIONS.set(0);
+        synchronized (LEASES) {
+            LEASES.clear();
+        }
+
+        client = new OrdersClient("localhost", LOCALIZATION_PORT);
+    }
+
+    @AfterEach
+    void close() {
+        client.close();
+    }
+
+    @Test
+    void unreachableProxyIsDroppedFromTheLease() {
+        leases(List.of(UNREACHABLE, WORKING));
+
+        assertEquals(7L, client.count());
+        assertEquals(7L, client.count());
+
+        assertEquals(List.of(Operation.COUNT, Operation.COUNT), WORKING_RECEIVED);
+        assertEquals(1, LOCALIZATIONS.get());
+    }
+
+    @Test
+    void overloadedWriteIsRepeatedOnAnotherProxy() {
+        leases(List.of(BUSY, WORKING));
+
+        final var created = client.create(new Order().setName("Recusada e repetida"));
+
+        assertEquals(42L, created.getCode());
+        assertEquals(List.of(Operation.CREATE), BUSY_RECEIVED);
+        assertEquals(List.of(Operation.CREATE), WORKING_RECEIVED);
+    }
+
+    @Test
+    void unansweredCreateIsNotRepeated() {
+        leases(List.of(DROPPING, WORKING));
+
+        assertThrows(ConnectionException.class, () -> client.create(new Order().setName("Talvez cadastrada")));
+
+        assertEquals(List.of(Operation.CREATE), DROPPING_RECEIVED);
+        assertEquals(List.of(), WORKING_RECEIVED);
+    }
+
+    @Test
+    void unansweredReadIsRepeatedOnAnotherProxy() {
+        leases(List.of(DROPPING, WORKING));
+
+        assertEquals(5L, client.find(5L).getCode());
+
+        assertEquals(List.of(Operation.FIND), DROPPING_RECEIVED);
+        assertEquals(List.of(Operation.FIND), WORKING_RECEIVED);
+    }
+
+    @Test
+    void localizationIsAskedAgainWhenNoProxyIsLeft() {
+        leases(List.of(DROPPING), List.of(WORKING));
+
+        assertEquals(5L, client.find(5L).getCode());
+
+        assertEquals(2, LOCALIZATIONS.get());
+        assertEquals(List.of(Operation.FIND), WORKING_RECEIVED);
+    }
+
+    @Test
+    void retriesStopAtTheLimit() {
+        leases(List.of(BUSY));
+
+        assertThrows(OperationException.class, () -> client.count());
+
+        assertEquals(Collections.nCopies(Constants.CLIENT_RETRIES + 1, Operation.COUNT), BUSY_RECEIVED);
+    }
+
+    @SafeVarargs
+    private static void leases(final List<InetSocketAddress>... leases) {
+        synchronized (LEASES) {
+            LEASES.addAll(List.of(leases));
+        }
+    }
+
+    private static Response<? extends Serializable> lease() {
+        LOCALIZATIONS.incrementAndGet();
+        synchronized (LEASES) {
+            final var addresses = LEASES.size() > 1 ? LEASES.poll() : LEASES.peek();
+            return new Response<>(new Lease(new ArrayList<>(addresses), 60_000L));
+        }
+    }
+
+    private static Response<? extends Serializable> answer(final Request<? extends Serializable> request) {
+        WORKING_RECEIVED.add(request.getOperation());
+
+        switch (request.getOperation()) {
+            case COUNT:
+                return new Response<>(7L);
+
+            case CREATE:
+                return new Response<>(((Order) request.getItem()).setCode(42L));
+
+            case FIND:
+                return new Response<>((Order) request.getItem());
+
+            default:
+                return new Response<>(ResponseStatus.ERROR, "Operação inesperada");
+        }
+    }
+
+    // Aceita a conexão e a requisição, e fecha a conexão sem responder
+    private static void dropEveryRequest() {
+        while (!dropping.isClosed()) {
+            try (final Socket socket = dropping.accept()) {
+                final var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final var output = socket.getOutputStream();
+
+                final var handshake = new byte[Frames.HANDSHAKE_SIZE];
+                input.readFully(handshake);
+                final var code = Frames.negotiate(ByteBuffer.wrap(handshake));
+                output.write(code);
+                output.flush();
+
+                final Request<?> request = Frames.decode(Frames.read(input), Frames.formatOf(code));
+                DROPPING_RECEIVED.add(request.getOperation());
+            } catch (final IOException e) {
+                // Servidor encerrado ou cliente que desistiu
+            }
+        }
+    }
+
+    private static InetSocketAddress address(final int port) {
+        return new InetSocketAddress("localhost", port);
+    }
+
+}
@@ -0,0 +1,93 @@
+package br.edu.ufersa.cc.sd.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import br.edu.ufersa.cc.sd.dto.ChangeSet;
+import br.edu.ufersa.cc.sd.dto.Lease;
+import br.edu.ufersa.cc.sd.dto.OrderCounts;
+import br.edu.ufersa.cc.sd.dto.Page;
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.models.Order;
+
+// Um item de cada marcador de tipo, inclusive os que seguem pela
+// serialização do Java, deve voltar igual na requisição e na resposta
+class BinaryCodecTest {
+
+    static Stream<Serializable> items() {
+        final var order = new Order()
+                .setCode(42L)
+                .setName("Ordem")
+                .setDescription("Descrição com acentuação")
+                .setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_000_000))
+                .setDoneAt(null);
+        final var done = new Order()
+                .setCode(-7L)
+                .setName(null)
+                .setDescription("")
+                .setCreatedAt(LocalDateTime.of(2024, 5, 2, 8, 0))
+                .setDoneAt(LocalDateTime.of(2024, 5, 3, 9, 15));
+
+        return Stream.of(
+                order,
+                Long.MAX_VALUE,
+                "texto",
+                new ArrayList<>(List.of(order, done)),
+                new ArrayList<>(List.of(1L, 2L, Long.MIN_VALUE)),
+                new InetSocketAddress("localhost", 8485),
+                new PageRequest(50, "cursor"),
+                new PageRequest(null, null),
+                new Page(new ArrayList<>(List.of(order)), "proximo"),
+                new OrderCounts(10L, 4L, 6L),
+                new ReplicaPosition(3L, 1_000L),
+                new ReplicaPosition(null, null),
+                new ReplicaPosition(3L, 1_000L, 500L),
+                new ChangeSet(3L, 1_000L, false, new ArrayList<>(List.of(order, done)),
+                        new ArrayList<>(List.of(5L, 6L)), null),
+                new ChangeSet(4L, 0L, true, new ArrayList<>(), new ArrayList<>(), 42L),
+                new Lease(new ArrayList<>(List.of(new InetSocketAddress("localhost", 8485))), 5_000L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("items")
+    void roundTripsRequests(final Serializable item) {
+        final var request = new Request<>(Operation.REPLICATE, item);
+        request.setCorrelationId(9L);
+
+        assertEquals(request, BinaryCodec.decode(BinaryCodec.encode(request)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("items")
+    void roundTripsResponses(final Serializable item) {
+        final var response = new Response<>(ResponseStatus.OK, "mensagem", item);
+        response.setCorrelationId(9L);
+
+        assertEquals(response, BinaryCodec.decode(BinaryCodec.encode(response)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("items")
+    void roundTripsEmptyMessagesOfEachType(final Serializable item) {
+        final var request = new Request<>(Operation.LIST, item.getClass());
+        final var response = new Response<>(ResponseStatus.NOT_FOUND, null, null, item.getClass(), null);
+
+        assertEquals(request, BinaryCodec.decode(BinaryCodec.encode(request)));
+        assertEquals(response, BinaryCodec.decode(BinaryCodec.encode(response)));
+    }
+
+}
@@ -0,0 +1,85 @@
+package br.edu.ufersa.cc.sd.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Com uma única conexão, o lote de uma transação desfeita não pode ir junto
+// com o lote seguinte do mesmo comando preparado
+class ConnectionPoolTest {
+
+    private static final String INSERT = "insert into items (code) values (?)";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void open() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1", "sa", "", 1, 8, 1_000);
+        pool.execute(connection -> connection.prepare("create table if not exists items (code BIGINT)")
+                .executeUpdate());
+        pool.execute(connection -> connection.prepare("delete from items").executeUpdate());
+    }
+
+    @AfterEach
+    void close() {
+        pool.close();
+    }
+
+    @Test
+    void failedBatchIsNotRunWithTheNextOne() throws SQLException {
+        assertThrows(SQLException.class, () -> pool.transaction(connection -> {
+            final var statement = connection.prepare(INSERT);
+            statement.setLong(1, 1L);
+            statement.addBatch();
+            statement.setLong(1, 2L);
+            statement.addBatch();
+            throw new SQLException("Falha no meio do lote");
+        }));
+
+        final var results = pool.transaction(connection -> {
+            final var statement = connection.prepare(INSERT);
+            statement.setLong(1, 3L);
+            statement.addBatch();
+            return statement.executeBatch();
+        });
+
+        assertArrayEquals(new int[] { 1 }, results);
+        assertEquals(1L, count());
+    }
+
+    @Test
+    void batchLeftByAnotherCallIsCleared() throws SQLException {
+        // Lote montado fora de uma transação e nunca executado
+        pool.execute(connection -> {
+            final var statement = connection.prepare(INSERT);
+            statement.setLong(1, 1L);
+            statement.addBatch();
+            return null;
+        });
+
+        pool.execute(connection -> {
+            final var statement = connection.prepare(INSERT);
+            statement.setLong(1, 2L);
+            statement.addBatch();
+            return statement.executeBatch();
+        });
+
+        assertEquals(1L, count());
+    }
+
+    private long count() throws SQLException {
+        return pool.execute(connection -> {
+            try (final var resultSet = connection.prepare("select count(*) from items").executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        });
+    }
+
+}
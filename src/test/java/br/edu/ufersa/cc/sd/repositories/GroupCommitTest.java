@@ -0,0 +1,167 @@
+package br.edu.ufersa.cc.sd.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+
+// Escritas de várias threads entram no mesmo grupo; as que falham voltam ao
+// próprio ponto de salvamento e as demais do grupo são confirmadas
+class GroupCommitTest {
+
+    private static final Integer WINDOW = 300;
+    private static final OrderRepository REPOSITORY = new OrderRepository();
+
+    private GroupCommit groupCommit;
+    private Order edited;
+    private Order removed;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        Migrations.migrate();
+        OrderRepository.reconcile();
+    }
+
+    @BeforeEach
+    void open() {
+        groupCommit = new GroupCommit(WINDOW, 16);
+
+        edited = new Order().setName("Antes do grupo").setCreatedAt(LocalDateTime.now());
+        removed = new Order().setName("Excluída no grupo").setCreatedAt(LocalDateTime.now());
+        REPOSITORY.createAll(List.of(edited, removed));
+    }
+
+    @AfterEach
+    void close() {
+        groupCommit.close();
+    }
+
+    @Test
+    void failingMembersDoNotUndoTheGroup() throws InterruptedException {
+        final var created = new Order().setName("Cadastrada no grupo").setCreatedAt(LocalDateTime.now());
+        final var tooLong = new Order().setName("x".repeat(300)).setCreatedAt(LocalDateTime.now());
+        final var missing = new Order().setCode(Long.MAX_VALUE).setName("Inexistente");
+        final var done = LocalDateTime.now();
+
+        final List<Runnable> writes = List.of(
+                () -> groupCommit.create(created),
+                () -> groupCommit.create(tooLong),
+                () -> groupCommit.update(new Order()
+                        .setCode(edited.getCode())
+                        .setName("Editada no grupo")
+                        .setCreatedAt(edited.getCreatedAt())
+                        .setDoneAt(done)),
+                () -> groupCommit.update(missing),
+                () -> groupCommit.delete(removed));
+
+        final var results = submitTogether(writes);
+
+        assertNull(results.get(0));
+        assertFailed(results.get(1));
+        assertNull(results.get(2));
+        assertFailed(results.get(3));
+        assertNull(results.get(4));
+
+        assertEquals("Cadastrada no grupo", REPOSITORY.findByCode(created.getCode()).getName());
+        assertEquals("Editada no grupo", REPOSITORY.findByCode(edited.getCode()).getName());
+        assertThrows(NotFoundException.class, () -> REPOSITORY.findByCode(removed.getCode()));
+        assertCountsMatchTable();
+    }
+
+    @Test
+    void writesWaitForTheWholeGroup() throws InterruptedException {
+        final var orders = new ArrayList<Order>();
+        final var writes = new ArrayList<Runnable>();
+        for (int i = 0; i < 4; i++) {
+            final var order = new Order().setName("Agrupada " + i).setCreatedAt(LocalDateTime.now());
+            orders.add(order);
+            writes.add(() -> groupCommit.create(order));
+        }
+
+        final var start = System.nanoTime();
+        submitTogether(writes).forEach(result -> assertNull(result));
+        final var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Todas só respondem depois da janela, quando o grupo é confirmado
+        assertTrue(elapsed >= WINDOW, "Respondidas em " + elapsed + " ms");
+        orders.forEach(order -> assertEquals(order.getName(), REPOSITORY.findByCode(order.getCode()).getName()));
+        assertCountsMatchTable();
+    }
+
+    @Test
+    void closedGroupRefusesWrites() {
+        groupCommit.close();
+
+        assertThrows(OperationException.class, () -> groupCommit.create(new Order().setName("Recusada")));
+    }
+
+    // Envia cada escrita de uma thread, todas juntas, e devolve a falha de
+    // cada uma (ou null) na mesma ordem
+    private static List<Throwable> submitTogether(final List<Runnable> writes) throws InterruptedException {
+        final var executor = Executors.newFixedThreadPool(writes.size());
+        final var ready = new CountDownLatch(1);
+
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for (final var write : writes) {
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    write.run();
+                    return null;
+                }));
+            }
+            ready.countDown();
+
+            final var results = new ArrayList<Throwable>();
+            for (final var future : futures) {
+                try {
+                    future.get(WINDOW * 10L, TimeUnit.MILLISECONDS);
+                    results.add(null);
+                } catch (final ExecutionException e) {
+                    results.add(e.getCause());
+                } catch (final TimeoutException e) {
+                    throw new AssertionError("Escrita sem resposta", e);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertFailed(final Throwable result) {
+        assertInstanceOf(OperationException.class, result);
+        assertInstanceOf(SQLException.class, result.getCause());
+    }
+
+    private static void assertCountsMatchTable() {
+        final var listed = REPOSITORY.listAll();
+        final var counts = REPOSITORY.countByStatus();
+
+        assertEquals(listed.size(), REPOSITORY.countAll());
+        assertEquals(listed.size(), counts.getTotal());
+        assertEquals(listed.stream().filter(order -> order.getDoneAt() != null).count(), counts.getDone());
+    }
+
+}
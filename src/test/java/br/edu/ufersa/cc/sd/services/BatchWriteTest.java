@@ -0,0 +1,101 @@
+package br.edu.ufersa.cc.sd.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.Migrations;
+import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// Um lote com um código inexistente não altera nada, nem quando vem no meio
+// de um grupo, e os lotes seguintes, em qualquer conexão do pool, gravam só
+// as próprias ordens
+class BatchWriteTest {
+
+    private static final OrderService SERVICE = new OrderService();
+    private static final Long MISSING = Long.MAX_VALUE;
+
+    private List<Order> orders;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        Migrations.migrate();
+        OrderRepository.reconcile();
+    }
+
+    @BeforeEach
+    void createOrders() {
+        orders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            orders.add(new Order().setName("Lote " + i).setCreatedAt(LocalDateTime.now()));
+        }
+        SERVICE.createAll(orders);
+    }
+
+    @Test
+    void failedUpdateLeavesNothingBehind() {
+        for (int attempt = 0; attempt <= Constants.JDBC_POOL_SIZE; attempt++) {
+            final var failing = List.of(edited(orders.get(0), "Não gravada"), new Order().setCode(MISSING));
+            assertThrows(OperationException.class, () -> SERVICE.updateAll(failing));
+
+            SERVICE.updateAll(List.of(edited(orders.get(1), "Gravada " + attempt)));
+        }
+
+        assertEquals("Lote 0", SERVICE.findByCode(orders.get(0).getCode()).getName());
+        assertNull(SERVICE.findByCode(orders.get(0).getCode()).getDoneAt());
+        assertCountsMatchTable();
+    }
+
+    @Test
+    void failedDeleteLeavesNothingBehind() {
+        final var failing = List.of(orders.get(0), new Order().setCode(MISSING));
+        for (int attempt = 0; attempt <= Constants.JDBC_POOL_SIZE; attempt++) {
+            assertThrows(OperationException.class, () -> SERVICE.deleteAll(failing));
+        }
+        SERVICE.deleteAll(List.of(orders.get(1)));
+
+        assertEquals("Lote 0", SERVICE.findByCode(orders.get(0).getCode()).getName());
+        assertEquals(List.of(orders.get(2).getCode(), orders.get(3).getCode()),
+                codesOf(SERVICE.findAllByCode(List.of(orders.get(1).getCode(), orders.get(2).getCode(),
+                        orders.get(3).getCode()))));
+        assertCountsMatchTable();
+    }
+
+    private static Order edited(final Order order, final String name) {
+        return new Order()
+                .setCode(order.getCode())
+                .setName(name)
+                .setDescription(order.getDescription())
+                .setCreatedAt(order.getCreatedAt())
+                .setDoneAt(LocalDateTime.now());
+    }
+
+    private static void assertCountsMatchTable() {
+        final var listed = SERVICE.listAll();
+        final var counts = SERVICE.countByStatus();
+
+        assertEquals(listed.size(), SERVICE.countAll());
+        assertEquals(listed.size(), counts.getTotal());
+        assertEquals(listed.stream().filter(order -> order.getDoneAt() != null).count(), counts.getDone());
+    }
+
+    private static List<Long> codesOf(final List<Order> orders) {
+        final var codes = new ArrayList<Long>();
+        orders.forEach(order -> codes.add(order.getCode()));
+        codes.sort(null);
+        return codes;
+    }
+
+}
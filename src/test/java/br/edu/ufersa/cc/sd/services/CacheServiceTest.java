@@ -0,0 +1,222 @@
+package br.edu.ufersa.cc.sd.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import br.edu.ufersa.cc.sd.cache.EvictionPolicy;
+import br.edu.ufersa.cc.sd.enums.EvictionMode;
+import br.edu.ufersa.cc.sd.exceptions.NotFoundException;
+import br.edu.ufersa.cc.sd.models.Order;
+
+// Várias threads buscando, editando, excluindo e descartando as mesmas ordens,
+// com a capacidade bem abaixo da quantidade de códigos para forçar remoções
+class CacheServiceTest {
+
+    private static final int CAPACITY = 64;
+    private static final int CODES = 256;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    @ParameterizedTest
+    @EnumSource(EvictionMode.class)
+    void keepsCapacityAndPolicyConsistentUnderContention(final EvictionMode mode) throws Exception {
+        final var cache = new CacheService(mode, CAPACITY);
+        final var errors = new ConcurrentLinkedQueue<String>();
+        final var running = new AtomicBoolean(true);
+        final var start = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        // Só uma thread altera o cache por vez, então passam da capacidade, entre
+        // a entrada e a remoção, no máximo as ordens de uma busca (duas, em findAll)
+        executor.submit(() -> {
+            while (running.get()) {
+                final var size = cache.getSize();
+                if (size > CAPACITY + 2) {
+                    errors.add("Cache com " + size + " ordens");
+                }
+            }
+        });
+
+        final var workers = new ArrayList<Future<?>>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                final var random = ThreadLocalRandom.current();
+
+                for (int i = 0; i < OPERATIONS; i++) {
+                    final var code = (long) random.nextInt(CODES);
+                    final var operation = random.nextInt(100);
+
+                    if (operation < 60) {
+                        final var found = cache.find(code, () -> {
+                            if (code % 31 == 0) {
+                                throw new NotFoundException();
+                            }
+                            return order(code);
+                        });
+                        if (found != null && !found.getCode().equals(code)) {
+                            errors.add("Busca por " + code + " devolveu " + found.getCode());
+                        }
+                    } else if (operation < 85) {
+                        cache.update(order(code));
+                    } else if (operation < 97) {
+                        cache.delete(order(code));
+                    } else if (operation < 99) {
+                        cache.findAll(List.of(code, code + 1), missing -> {
+                            final var fetched = new ArrayList<Order>();
+                            missing.forEach(missingCode -> fetched.add(order(missingCode)));
+                            return fetched;
+                        });
+                    } else {
+                        cache.invalidate(List.of(code));
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (final var worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(errors.isEmpty(), () -> String.join("\n", errors));
+        assertTrue(cache.getSize() <= CAPACITY, "Cache com " + cache.getSize() + " ordens");
+
+        // Cada ordem guardada é conhecida pela política, e só elas
+        final var cached = cachedItems(cache);
+        for (final var entry : cached.entrySet()) {
+            assertEquals(entry.getKey(), itemCode(entry.getValue()));
+        }
+        assertEquals(cached.keySet(), drain(cache));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = EvictionMode.class, names = { "FIFO", "LRU" })
+    void evictsEveryOldOrderAfterContention(final EvictionMode mode) throws Exception {
+        final var cache = new CacheService(mode, CAPACITY);
+        final var executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                final var random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    final var code = (long) random.nextInt(CODES);
+                    if (random.nextBoolean()) {
+                        cache.update(order(code));
+                    } else {
+                        cache.find(code, () -> order(code));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        // Uma ordem que ficasse fora da política nunca sairia do cache
+        for (long code = CODES; code < CODES + CAPACITY; code++) {
+            cache.update(order(code));
+        }
+        assertEquals(CAPACITY, cache.getSize());
+        for (long code = 0; code < CODES; code++) {
+            assertNull(cache.find(code, () -> {
+                throw new NotFoundException();
+            }), "Ordem " + code + " continua no cache");
+        }
+    }
+
+    private static Order order(final long code) {
+        return new Order().setCode(code).setName("Ordem " + code);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Object> cachedItems(final CacheService cache) throws ReflectiveOperationException {
+        final var field = CacheService.class.getDeclaredField("cache");
+        field.setAccessible(true);
+        return (Map<Long, Object>) field.get(cache);
+    }
+
+    private static Long itemCode(final Object metadata) throws ReflectiveOperationException {
+        final var field = metadata.getClass().getDeclaredField("item");
+        field.setAccessible(true);
+        return ((Order) field.get(metadata)).getCode();
+    }
+
+    // Esvazia a política, devolvendo as chaves que ela conhecia
+    @SuppressWarnings("unchecked")
+    private static Set<Long> drain(final CacheService cache) throws ReflectiveOperationException {
+        final var field = CacheService.class.getDeclaredField("policy");
+        field.setAccessible(true);
+        final var policy = (EvictionPolicy<Long>) field.get(cache);
+
+        final var keys = new HashSet<Long>();
+        for (var key = policy.evict(); key != null; key = policy.evict()) {
+            assertTrue(keys.add(key), "Chave " + key + " repetida na política");
+        }
+        return keys;
+    }
+
+    // Alterações feitas enquanto a busca estava no servidor vencem o resultado dela
+    @Test
+    void fetchDoesNotRestoreOrderDeletedMeanwhile() {
+        final var cache = new CacheService(EvictionMode.LRU, CAPACITY);
+        final var order = new Order().setCode(7L).setName("Antiga");
+
+        cache.find(7L, () -> {
+            cache.delete(order);
+            return order;
+        });
+
+        assertEquals(0, cache.getSize());
+        assertEquals("Nova", cache.find(7L, () -> new Order().setCode(7L).setName("Nova")).getName());
+    }
+
+    @Test
+    void fetchDoesNotOverwriteOrderUpdatedMeanwhile() {
+        final var cache = new CacheService(EvictionMode.LRU, CAPACITY);
+
+        cache.findAll(List.of(7L, 8L), codes -> {
+            cache.update(new Order().setCode(7L).setName("Editada"));
+            return List.of(new Order().setCode(7L).setName("Antiga"));
+        });
+
+        assertEquals("Editada", cache.find(7L, () -> {
+            throw new NotFoundException();
+        }).getName());
+        assertEquals("Outra", cache.find(8L, () -> new Order().setCode(8L).setName("Outra")).getName());
+    }
+
+    @Test
+    void fetchDoesNotCacheAbsenceInvalidatedMeanwhile() {
+        final var cache = new CacheService(EvictionMode.LRU, CAPACITY);
+
+        assertNull(cache.find(9L, () -> {
+            cache.invalidate(List.of(9L));
+            throw new NotFoundException();
+        }));
+
+        assertEquals("Criada", cache.find(9L, () -> new Order().setCode(9L).setName("Criada")).getName());
+    }
+
+}
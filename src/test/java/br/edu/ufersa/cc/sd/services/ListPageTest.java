@@ -0,0 +1,79 @@
+package br.edu.ufersa.cc.sd.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.Migrations;
+import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+
+// Ordens cadastradas no mesmo milissegundo, com microssegundos diferentes,
+// aparecem todas e uma única vez ao percorrer a listagem por páginas
+class ListPageTest {
+
+    private static final OrderService SERVICE = new OrderService();
+
+    // Depois de qualquer outra ordem dos testes, para ocupar o início da listagem
+    private static final LocalDateTime MILLISECOND = LocalDateTime.of(2100, 1, 1, 0, 0, 0, 123_000_000);
+
+    private static final Set<Long> CODES = new HashSet<>();
+
+    @BeforeAll
+    static void createOrders() throws SQLException {
+        Migrations.migrate();
+        OrderRepository.reconcile();
+
+        final var batch = new ArrayList<Order>();
+        for (int i = 0; i < 7; i++) {
+            batch.add(order(i * 100_000 + 1_000));
+        }
+        SERVICE.createAll(batch);
+        batch.forEach(order -> CODES.add(order.getCode()));
+
+        for (int i = 0; i < 3; i++) {
+            final var order = order(i * 300_000 + 50_000);
+            SERVICE.create(order);
+            CODES.add(order.getCode());
+        }
+    }
+
+    @Test
+    void pagesKeepRowsSharingAMillisecond() {
+        for (final var size : List.of(1, 2, 3, 4)) {
+            final var seen = new HashSet<Long>();
+            String cursor = null;
+
+            do {
+                final var page = SERVICE.listPage(new PageRequest(size, cursor));
+                page.getItems().forEach(order -> assertTrue(seen.add(order.getCode()), "repetida: " + order.getCode()));
+                cursor = page.getNext();
+            } while (cursor != null && !seen.containsAll(CODES));
+
+            assertTrue(seen.containsAll(CODES), "páginas de " + size + " perderam ordens");
+        }
+    }
+
+    @Test
+    void createdAtIsKeptToTheMillisecond() {
+        final var listed = SERVICE.listPage(new PageRequest(CODES.size(), null)).getItems();
+
+        assertEquals(CODES.size(), listed.size());
+        listed.forEach(order -> assertEquals(MILLISECOND, order.getCreatedAt()));
+    }
+
+    private static Order order(final int nanos) {
+        return new Order().setName("Mesmo milissegundo").setCreatedAt(MILLISECOND.plusNanos(nanos));
+    }
+
+}
@@ -0,0 +1,78 @@
+package br.edu.ufersa.cc.sd.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.dto.ReplicaPosition;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.Migrations;
+import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// A cópia da base para uma réplica nova vem em partes limitadas, que juntas
+// trazem todas as ordens, e termina com alterações feitas durante a cópia
+class ReplicationSnapshotTest {
+
+    private static final OrderService SERVICE = new OrderService();
+
+    @BeforeAll
+    static void createOrders() throws SQLException {
+        Migrations.migrate();
+        OrderRepository.reconcile();
+
+        final var orders = new ArrayList<Order>();
+        for (int i = 0; i < Constants.REPLICATION_PAGE * 2 + 500; i++) {
+            orders.add(new Order().setName("Ordem " + i).setCreatedAt(LocalDateTime.now()));
+        }
+        SERVICE.createAll(orders);
+    }
+
+    @Test
+    void copiesTheWholeBaseInBoundedPages() {
+        final var expected = SERVICE.listAll().stream().map(Order::getCode).collect(Collectors.toSet());
+        final var copied = new HashSet<Long>();
+
+        var changes = SERVICE.changesSince(new ReplicaPosition(null, null));
+        assertTrue(changes.getSnapshot());
+        final var start = changes.getSequence();
+        var pages = 1;
+
+        // Uma escrita no meio da cópia
+        final var late = new Order().setName("Durante a cópia").setCreatedAt(LocalDateTime.now());
+        SERVICE.create(late);
+
+        while (true) {
+            assertTrue(changes.getOrders().size() <= Constants.REPLICATION_PAGE);
+            assertEquals(start, changes.getSequence());
+            changes.getOrders().forEach(order -> assertTrue(copied.add(order.getCode()), "Ordem repetida"));
+
+            if (changes.getNext() == null) {
+                break;
+            }
+            changes = SERVICE.changesSince(new ReplicaPosition(changes.getEpoch(), start, changes.getNext()));
+            assertFalse(changes.getSnapshot());
+            pages++;
+        }
+
+        assertTrue(pages >= 3, "Cópia em " + pages + " partes");
+        assertTrue(copied.containsAll(expected));
+
+        // Depois da cópia, as alterações feitas desde o início dela
+        final var after = SERVICE.changesSince(new ReplicaPosition(changes.getEpoch(), start));
+        assertFalse(after.getSnapshot());
+        assertNull(after.getNext());
+        assertTrue(after.getOrders().stream().anyMatch(order -> order.getCode().equals(late.getCode())));
+    }
+
+}
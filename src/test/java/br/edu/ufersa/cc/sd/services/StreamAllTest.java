@@ -0,0 +1,94 @@
+package br.edu.ufersa.cc.sd.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.dto.PageRequest;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.repositories.Migrations;
+import br.edu.ufersa.cc.sd.repositories.OrderRepository;
+import br.edu.ufersa.cc.sd.utils.Constants;
+
+// A transmissão entrega todas as ordens na ordem da listagem e não prende
+// conexões do pool enquanto o destinatário está parado
+class StreamAllTest {
+
+    private static final OrderService SERVICE = new OrderService();
+    private static final OrderRepository REPOSITORY = new OrderRepository();
+
+    @BeforeAll
+    static void createOrders() throws SQLException {
+        Migrations.migrate();
+        OrderRepository.reconcile();
+
+        final var orders = new ArrayList<Order>();
+        for (int i = 0; i < 25; i++) {
+            orders.add(new Order().setName("Transmitida " + i).setCreatedAt(LocalDateTime.now()));
+        }
+        SERVICE.createAll(orders);
+    }
+
+    @Test
+    void streamsEveryOrderInListingOrder() {
+        final var streamed = new ArrayList<Order>();
+        final var total = REPOSITORY.streamAll(4, chunk -> {
+            assertTrue(chunk.size() <= 4);
+            streamed.addAll(chunk);
+        });
+
+        final var listed = SERVICE.listAll();
+        assertEquals(listed.size(), total);
+        assertEquals(codesOf(listed), codesOf(streamed));
+        assertEquals(streamed.size(), new HashSet<>(codesOf(streamed)).size());
+    }
+
+    @Test
+    void stalledStreamsDoNotHoldConnections() throws InterruptedException {
+        final var release = new CountDownLatch(1);
+        final var stalled = new CountDownLatch(Constants.JDBC_POOL_SIZE);
+        final var executor = Executors.newFixedThreadPool(Constants.JDBC_POOL_SIZE);
+
+        // Um destinatário parado por conexão do pool
+        for (int i = 0; i < Constants.JDBC_POOL_SIZE; i++) {
+            executor.execute(() -> REPOSITORY.streamAll(4, chunk -> {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        try {
+            assertTrue(stalled.await(5, TimeUnit.SECONDS));
+            assertTimeoutPreemptively(Duration.ofMillis(Constants.JDBC_POOL_TIMEOUT / 2),
+                    () -> SERVICE.listPage(new PageRequest(1, null)));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ArrayList<Long> codesOf(final List<Order> orders) {
+        final var codes = new ArrayList<Long>();
+        orders.forEach(order -> codes.add(order.getCode()));
+        return codes;
+    }
+
+}
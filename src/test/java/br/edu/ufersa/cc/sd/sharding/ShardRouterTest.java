@@ -0,0 +1,195 @@
+package br.edu.ufersa.cc.sd.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.ufersa.cc.sd.dto.Request;
+import br.edu.ufersa.cc.sd.dto.Response;
+import br.edu.ufersa.cc.sd.enums.Operation;
+import br.edu.ufersa.cc.sd.enums.ResponseStatus;
+import br.edu.ufersa.cc.sd.exceptions.OperationException;
+import br.edu.ufersa.cc.sd.models.Order;
+import br.edu.ufersa.cc.sd.network.Transport;
+
+// Lotes com códigos de várias partes são divididos pelo dono de cada código;
+// cadastros em lote vão inteiros a uma só parte. Cada parte aqui é um
+// servidor falso que só registra o que recebeu
+class ShardRouterTest {
+
+    private static final int SHARDS = 3;
+    private static final int FIRST_PORT = 19_911;
+    private static final HashRing RING = new HashRing(SHARDS);
+
+    private static final List<Transport> SERVERS = new ArrayList<>();
+    private static final List<List<Request<ArrayList<Order>>>> RECEIVED = new ArrayList<>();
+    private static final Set<Integer> REFUSING = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong NEXT_CODE = new AtomicLong(1);
+
+    private ShardRouter router;
+
+    @BeforeAll
+    static void startShards() throws IOException {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            final var received = new CopyOnWriteArrayList<Request<ArrayList<Order>>>();
+            final var self = shard;
+            RECEIVED.add(received);
+
+            final var server = Transport.create("shard-" + shard, FIRST_PORT + shard,
+                    (request, sink) -> answer(self, received, request));
+            server.start();
+            SERVERS.add(server);
+        }
+    }
+
+    @AfterAll
+    static void stopShards() {
+        SERVERS.forEach(Transport::stop);
+    }
+
+    @BeforeEach
+    void open() {
+        RECEIVED.forEach(List::clear);
+        REFUSING.clear();
+
+        final var addresses = new ArrayList<InetSocketAddress>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            addresses.add(InetSocketAddress.createUnresolved("localhost", FIRST_PORT + shard));
+        }
+        router = new ShardRouter(addresses, 1);
+    }
+
+    @AfterEach
+    void close() {
+        router.close();
+    }
+
+    @Test
+    void updatesGoToTheOwnerOfEachCode() {
+        final var orders = ordersWithCodes(1, 60);
+
+        final Response<Long> response = router.call(new Request<>(Operation.BATCH_UPDATE, orders));
+
+        assertEquals(ResponseStatus.OK, response.getStatus());
+        assertEquals(60L, response.getItem());
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(1, RECEIVED.get(shard).size());
+
+            final var self = shard;
+            final var expected = orders.stream().map(Order::getCode)
+                    .filter(code -> RING.owner(code) == self).collect(Collectors.toSet());
+            assertEquals(expected, codesOf(RECEIVED.get(shard).get(0).getItem()));
+        }
+    }
+
+    @Test
+    void shardsWithoutCodesAreNotCalled() {
+        final var orders = ownedBy(0, 5);
+
+        final Response<Long> response = router.call(new Request<>(Operation.BATCH_DELETE, orders));
+
+        assertEquals(5L, response.getItem());
+        assertEquals(1, RECEIVED.get(0).size());
+        assertTrue(RECEIVED.get(1).isEmpty());
+        assertTrue(RECEIVED.get(2).isEmpty());
+    }
+
+    @Test
+    void partlyWrittenBatchIsThrown() {
+        REFUSING.add(1);
+
+        assertThrows(OperationException.class,
+                () -> router.call(new Request<>(Operation.BATCH_UPDATE, ordersWithCodes(1, 60))));
+        RECEIVED.forEach(received -> assertEquals(1, received.size()));
+    }
+
+    @Test
+    void batchRefusedEverywhereIsReturned() {
+        REFUSING.add(2);
+
+        final Response<Long> response = router.call(new Request<>(Operation.BATCH_DELETE, ownedBy(2, 4)));
+
+        assertEquals(ResponseStatus.ERROR, response.getStatus());
+        assertEquals("Recusado pela parte 2", response.getMessage());
+    }
+
+    @Test
+    void batchCreatesStayWholeAndRotate() {
+        final var created = new HashSet<Long>();
+        for (int batch = 0; batch < SHARDS; batch++) {
+            final var orders = new ArrayList<Order>();
+            for (int i = 0; i < 5; i++) {
+                orders.add(new Order().setName("Lote " + batch + " ordem " + i));
+            }
+
+            final Response<ArrayList<Order>> response = router.call(new Request<>(Operation.BATCH_CREATE, orders));
+
+            assertEquals(ResponseStatus.OK, response.getStatus());
+            assertEquals(5, response.getItem().size());
+            response.getItem().forEach(order -> assertTrue(created.add(order.getCode())));
+        }
+
+        // Cada lote chegou inteiro a uma parte diferente
+        for (final var received : RECEIVED) {
+            assertEquals(1, received.size());
+            assertEquals(5, received.get(0).getItem().size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Response<? extends Serializable> answer(final int shard,
+            final List<Request<ArrayList<Order>>> received, final Request<? extends Serializable> request) {
+        received.add((Request<ArrayList<Order>>) request);
+        if (REFUSING.contains(shard)) {
+            return new Response<>(ResponseStatus.ERROR, "Recusado pela parte " + shard);
+        }
+
+        final var orders = (ArrayList<Order>) request.getItem();
+        if (request.getOperation() == Operation.BATCH_CREATE) {
+            orders.forEach(order -> order.setCode(NEXT_CODE.getAndIncrement()));
+            return new Response<>(orders);
+        }
+        return new Response<>((long) orders.size());
+    }
+
+    private static ArrayList<Order> ordersWithCodes(final long first, final long last) {
+        final var orders = new ArrayList<Order>();
+        for (long code = first; code <= last; code++) {
+            orders.add(new Order().setCode(code).setName("Ordem " + code));
+        }
+        return orders;
+    }
+
+    private static ArrayList<Order> ownedBy(final int shard, final int count) {
+        final var orders = new ArrayList<Order>();
+        for (long code = 1; orders.size() < count; code++) {
+            if (RING.owner(code) == shard) {
+                orders.add(new Order().setCode(code).setName("Ordem " + code));
+            }
+        }
+        return orders;
+    }
+
+    private static Set<Long> codesOf(final List<Order> orders) {
+        return orders.stream().map(Order::getCode).collect(Collectors.toSet());
+    }
+
+}